@@ -0,0 +1,391 @@
+package com.trading;
+
+import com.google.gson.Gson;
+import com.trading.json.JsonCodecs;
+import com.trading.json.JsonReader;
+import com.trading.json.JsonWriter;
+import com.trading.model.TradeState;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Cluster membership and the node-to-node link.
+ *
+ * Traders are partitioned across nodes with a consistent-hash ring; each node keeps its
+ * own TradeService / CreditExposureService state for the traders it owns. Any node accepts
+ * HTTP requests and forwards them to the owner over a small binary TCP protocol:
+ *
+ *   request : [op:byte][op specific fields, DataOutput encoded]
+ *   response: [status:int][length:int][UTF-8 JSON body]
+ *
+ * Configured with system properties, e.g. for a three node cluster on one host:
+ *   -Dcluster.node=n1 -Dcluster.nodes=n1@localhost:9101,n2@localhost:9102,n3@localhost:9103
+ * Without cluster.nodes the service runs standalone and everything is local.
+ */
+public class ClusterService {
+
+    private static final byte OP_CREATE = 1;
+    private static final byte OP_GET = 2;
+    private static final byte OP_CANCEL = 3;
+    private static final byte OP_EXPOSURE = 4;
+    private static final byte OP_ALL_TRADES = 5;
+    private static final byte OP_EXECUTION = 6;
+    private static final byte OP_CANCEL_BULK = 7;
+
+    private static final int SOCKET_TIMEOUT_MS = 5_000;
+    // trade ids are "<node>-" plus a 36-char UUID and have to fit an ExecutionJournal record
+    private static final int MAX_NODE_ID_BYTES = ExecutionJournal.MAX_ID_BYTES - 37;
+
+    private final String self;
+    private final Map<String, InetSocketAddress> nodes;
+    private final ConsistentHashRing ring;
+    private final Map<String, ConcurrentLinkedQueue<PeerConnection>> idle = new ConcurrentHashMap<>();
+    private final ExecutorService exec = Executors.newCachedThreadPool();
+    private final Gson gson = new Gson();
+
+    private ClusterService(String self, Map<String, InetSocketAddress> nodes) {
+        this.self = self;
+        this.nodes = nodes;
+        this.ring = new ConsistentHashRing(nodes.keySet());
+        for (String node : nodes.keySet()) {
+            idle.put(node, new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    public static ClusterService fromSystemProperties() {
+        String spec = System.getProperty("cluster.nodes");
+        if (spec == null || spec.isBlank()) {
+            return new ClusterService("local", Map.of());
+        }
+
+        Map<String, InetSocketAddress> nodes = new LinkedHashMap<>();
+        for (String entry : spec.split(",")) {
+            // n1@host:port
+            String[] idAndAddr = entry.trim().split("@");
+            String[] hostAndPort = idAndAddr[1].split(":");
+            if (idAndAddr[0].contains("-"))
+                throw new IllegalArgumentException("Cluster node id must not contain '-': " + idAndAddr[0]);
+            if (idAndAddr[0].getBytes(StandardCharsets.UTF_8).length > MAX_NODE_ID_BYTES)
+                throw new IllegalArgumentException("Cluster node id longer than " + MAX_NODE_ID_BYTES + " bytes: " + idAndAddr[0]);
+            nodes.put(idAndAddr[0], new InetSocketAddress(hostAndPort[0], Integer.parseInt(hostAndPort[1])));
+        }
+
+        String self = System.getProperty("cluster.node");
+        if (self == null || !nodes.containsKey(self))
+            throw new IllegalArgumentException("cluster.node must be one of " + nodes.keySet());
+
+        return new ClusterService(self, nodes);
+    }
+
+    public boolean isEnabled() {
+        return !nodes.isEmpty();
+    }
+
+    public String self() {
+        return self;
+    }
+
+    public boolean isSelf(String node) {
+        return self.equals(node);
+    }
+
+    public String ownerOfTrader(String trader) {
+        if (!isEnabled() || trader == null) return self;
+        return ring.ownerOf(trader);
+    }
+
+    // trade ids are "<node>-<uuid>" in cluster mode, see tradeIdPrefix()
+    public String ownerOfTrade(String tradeId) {
+        if (!isEnabled() || tradeId == null) return self;
+        int dash = tradeId.indexOf('-');
+        if (dash > 0 && nodes.containsKey(tradeId.substring(0, dash))) {
+            return tradeId.substring(0, dash);
+        }
+        return self;
+    }
+
+    public String tradeIdPrefix() {
+        return isEnabled() ? self + "-" : "";
+    }
+
+    //----------------------------------------------------------------------
+    // Inbound: serve requests forwarded by other nodes
+    //----------------------------------------------------------------------
+
+    public void start(TradeApi api) throws IOException {
+        if (!isEnabled()) return;
+
+        ServerSocket listener = new ServerSocket(nodes.get(self).getPort());
+        Thread acceptor = new Thread(() -> {
+            while (!listener.isClosed()) {
+                try {
+                    Socket s = listener.accept();
+                    s.setTcpNoDelay(true);
+                    exec.submit(() -> serve(s, api));
+                } catch (IOException e) {
+                    System.err.println("Cluster accept failed: " + e.getMessage());
+                }
+            }
+        }, "cluster-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        System.out.println("Cluster node " + self + " listening on " + listener.getLocalPort()
+                + ", members " + nodes.keySet());
+    }
+
+    private void serve(Socket s, TradeApi api) {
+        try (s;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+
+            while (true) {
+                int op = in.read();
+                if (op < 0) return;
+
+                TradeApi.Reply reply;
+                // dispatch() reads the whole request before acting, so a failure leaves the
+                // stream in step and is answered with an error frame instead of dropping the link
+                try {
+                    reply = dispatch(op, in, api);
+                } catch (RuntimeException e) {
+                    int status = e instanceof IllegalArgumentException ? 400 : 500;
+                    reply = new TradeApi.Reply(status, gson.toJson(Map.of("error", String.valueOf(e.getMessage()))));
+                }
+
+                byte[] body = reply.getBody();
+                out.writeInt(reply.getStatus());
+                out.writeInt(body.length);
+                out.write(body);
+                out.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("Cluster link closed: " + e.getMessage());
+        }
+    }
+
+    private static TradeApi.Reply dispatch(int op, DataInputStream in, TradeApi api) throws IOException {
+        switch (op) {
+            case OP_CREATE:
+                return api.create(in.readUTF(), in.readUTF(), in.readInt(), in.readLong());
+            case OP_GET:
+                return api.get(in.readUTF());
+            case OP_CANCEL:
+                return api.cancel(in.readUTF());
+            case OP_EXPOSURE:
+                return api.exposure(in.readUTF());
+            case OP_ALL_TRADES:
+                return api.allTrades();
+            case OP_EXECUTION:
+                return api.execution(in.readUTF());
+            case OP_CANCEL_BULK:
+                String trader = readOptional(in);
+                String isin = readOptional(in);
+                String state = readOptional(in);
+                return api.cancelBulk(trader, isin, state == null ? null : TradeState.valueOf(state));
+            default:
+                throw new IOException("Unknown cluster op " + op);
+        }
+    }
+
+    //----------------------------------------------------------------------
+    // Outbound: forward to the owning node
+    //----------------------------------------------------------------------
+
+    public TradeApi.Reply forwardCreate(String node, String isin, String trader, int qty, long limit) {
+        // writeUTF cannot encode null; answer the way the owner would
+        if (isin == null) return new TradeApi.Reply(400, gson.toJson(Map.of("error", "Invalid ISIN")));
+        if (trader == null) return new TradeApi.Reply(400, gson.toJson(Map.of("error", "trader required")));
+        return call(node, out -> {
+            out.writeByte(OP_CREATE);
+            out.writeUTF(isin);
+            out.writeUTF(trader);
+            out.writeInt(qty);
+            out.writeLong(limit);
+        });
+    }
+
+    public TradeApi.Reply forwardGet(String node, String id) {
+        return call(node, out -> {
+            out.writeByte(OP_GET);
+            out.writeUTF(id);
+        });
+    }
+
+    public TradeApi.Reply forwardCancel(String node, String id) {
+        return call(node, out -> {
+            out.writeByte(OP_CANCEL);
+            out.writeUTF(id);
+        });
+    }
+
+    public TradeApi.Reply forwardExposure(String node, String trader) {
+        return call(node, out -> {
+            out.writeByte(OP_EXPOSURE);
+            out.writeUTF(trader);
+        });
+    }
+
+    public TradeApi.Reply forwardExecution(String node, String tradeId) {
+        return call(node, out -> {
+            out.writeByte(OP_EXECUTION);
+            out.writeUTF(tradeId);
+        });
+    }
+
+    public TradeApi.Reply forwardCancelBulk(String node, String trader, String isin, TradeState state) {
+        return call(node, out -> writeCancelBulk(out, trader, isin, state));
+    }
+
+    /**
+     * Mass cancel not limited to one trader touches every node; cancels run in parallel and
+     * the reply carries the total. Unreachable nodes are reported, not silently skipped.
+     */
+    public TradeApi.Reply cancelBulkEverywhere(TradeApi local, String isin, TradeState state) {
+        List<Future<TradeApi.Reply>> pending = new ArrayList<>();
+        for (String node : nodes.keySet()) {
+            if (isSelf(node)) continue;
+            pending.add(exec.submit(() -> call(node, out -> writeCancelBulk(out, null, isin, state))));
+        }
+
+        int total = count(local.cancelBulk(null, isin, state));
+        for (Future<TradeApi.Reply> f : pending) {
+            try {
+                TradeApi.Reply r = f.get();
+                if (r.getStatus() != 200) return r;
+                total += count(r);
+            } catch (InterruptedException | ExecutionException e) {
+                return new TradeApi.Reply(503, gson.toJson(Map.of("error", "Mass cancel incomplete: " + e.getMessage())));
+            }
+        }
+        JsonWriter w = JsonWriter.local();
+        JsonCodecs.writeBulkCancelAck(w, total);
+        return TradeApi.Reply.ok(w);
+    }
+
+    private static void writeCancelBulk(DataOutputStream out, String trader, String isin, TradeState state) throws IOException {
+        out.writeByte(OP_CANCEL_BULK);
+        writeOptional(out, trader);
+        writeOptional(out, isin);
+        writeOptional(out, state == null ? null : state.name());
+    }
+
+    // absent filters are flagged, never encoded as a value: "" must not widen a cancel to "any"
+    private static void writeOptional(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
+    private static String readOptional(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static int count(TradeApi.Reply r) {
+        try {
+            return JsonCodecs.readBulkCancelAck(JsonReader.local(new ByteArrayInputStream(r.getBody())));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Blotter across all nodes: local trades plus every peer's, fetched in parallel. */
+    public TradeApi.Reply gatherAllTrades(TradeApi local) {
+        List<Future<TradeApi.Reply>> pending = new ArrayList<>();
+        for (String node : nodes.keySet()) {
+            if (isSelf(node)) continue;
+            pending.add(exec.submit(() -> call(node, out -> out.writeByte(OP_ALL_TRADES))));
+        }
+
+        // every part is an encoded JSON array; splice their elements together without parsing
+        byte[] localTrades = local.allTrades().getBody();
+        JsonWriter merged = JsonWriter.local().beginArray();
+        appendElements(merged, localTrades);
+        // a blotter missing a node's trades would look complete, so fail the whole request
+        for (Future<TradeApi.Reply> f : pending) {
+            try {
+                TradeApi.Reply r = f.get();
+                if (r.getStatus() != 200) {
+                    System.err.println("Blotter gather failed: " + new String(r.getBody(), StandardCharsets.UTF_8));
+                    return r;
+                }
+                appendElements(merged, r.getBody());
+            } catch (InterruptedException | ExecutionException e) {
+                System.err.println("Blotter gather failed: " + e.getMessage());
+                return new TradeApi.Reply(503, gson.toJson(Map.of("error", "Blotter incomplete: " + e.getMessage())));
+            }
+        }
+        return TradeApi.Reply.ok(merged.endArray());
+    }
+
+    private static void appendElements(JsonWriter w, byte[] array) {
+        int from = indexOf(array, (byte) '[') + 1;
+        int to = lastIndexOf(array, (byte) ']');
+        while (from < to && Character.isWhitespace(array[from])) from++;
+        if (from < to) w.raw(array, from, to - from);
+    }
+
+    private static int indexOf(byte[] b, byte c) {
+        for (int i = 0; i < b.length; i++) if (b[i] == c) return i;
+        return -1;
+    }
+
+    private static int lastIndexOf(byte[] b, byte c) {
+        for (int i = b.length - 1; i >= 0; i--) if (b[i] == c) return i;
+        return -1;
+    }
+
+    private interface RequestWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private TradeApi.Reply call(String node, RequestWriter writer) {
+        PeerConnection c = idle.get(node).poll();
+        try {
+            if (c == null) c = new PeerConnection(nodes.get(node));
+
+            writer.write(c.out);
+            c.out.flush();
+
+            int status = c.in.readInt();
+            byte[] body = new byte[c.in.readInt()];
+            c.in.readFully(body);
+
+            idle.get(node).offer(c);
+            return new TradeApi.Reply(status, body);
+
+        } catch (Exception e) {
+            // the connection may be half written or half read; never hand it out again
+            if (c != null) c.close();
+            if (e instanceof IOException)
+                return new TradeApi.Reply(503, gson.toJson(Map.of("error", "Node " + node + " unavailable")));
+            return new TradeApi.Reply(500, gson.toJson(Map.of("error", "Cluster call to " + node + " failed: " + e)));
+        }
+    }
+
+    private static class PeerConnection {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        PeerConnection(InetSocketAddress addr) throws IOException {
+            socket = new Socket();
+            socket.connect(addr, SOCKET_TIMEOUT_MS);
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(SOCKET_TIMEOUT_MS);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {}
+        }
+    }
+}
@@ -1,42 +1,66 @@
 package com.trading;
 
+import com.trading.model.Price;
+
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Mock credit/exposure service.
  * Tracks simple per-trader exposure (notional) and a per-trader limit.
+ * Amounts are fixed-point (see Price), so totals are exact.
  */
 public class CreditExposureService {
 
-    // notional exposure (mock)
-    private final ConcurrentHashMap<String, Double> exposures = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, Double> limits = new ConcurrentHashMap<>();
+    private static final long DEFAULT_LIMIT = 250_000 * Price.SCALE;
+
+    // notional exposure (mock); one CAS cell per trader
+    private final ConcurrentHashMap<String, AtomicLong> exposures = new ConcurrentHashMap<>();
+    private final Map<String, Long> limits = new ConcurrentHashMap<>();
 
     public CreditExposureService() {
         // default limits (mock)
-        limits.put("TRADER1", 1_000_000.0);
-        limits.put("TRADER2", 500_000.0);
+        limits.put("TRADER1", 1_000_000 * Price.SCALE);
+        limits.put("TRADER2", 500_000 * Price.SCALE);
         // others use a default below
     }
 
     // returns total exposure
-    public double getExposure(String trader) {
-        return exposures.getOrDefault(trader, 0.0);
+    public long getExposure(String trader) {
+        AtomicLong e = exposures.get(trader);
+        return e == null ? 0 : e.get();
     }
 
-    public double getLimit(String trader) {
-        return limits.getOrDefault(trader, 250_000.0);
+    public long getLimit(String trader) {
+        Long limit = limits.get(trader);
+        return limit == null ? DEFAULT_LIMIT : limit;
     }
 
     // simple check: allowed if current exposure + notional <= limit
-    public boolean isAllowed(String trader, int qty, double limitPrice) {
-        double notional = qty * limitPrice;
-        double current = getExposure(trader);
-        return (current + notional) <= getLimit(trader);
+    public boolean isAllowed(String trader, int qty, long limitPrice) {
+        try {
+            long notional = Price.notional(qty, limitPrice);
+            return Math.addExact(getExposure(trader), notional) <= getLimit(trader);
+        } catch (ArithmeticException overflow) {
+            return false;
+        }
+    }
+
+    // copy of all exposures, for snapshots
+    public Map<String, Long> getExposures() {
+        Map<String, Long> copy = new HashMap<>();
+        exposures.forEach((trader, e) -> copy.put(trader, e.get()));
+        return copy;
+    }
+
+    public void restoreExposure(String trader, long notional) {
+        exposures.computeIfAbsent(trader, k -> new AtomicLong()).set(notional);
     }
 
     // increase exposure (call when trade is confirmed)
-    public void addExposure(String trader, double notional) {
-        exposures.merge(trader, notional, Double::sum);
+    public void addExposure(String trader, long notional) {
+        exposures.computeIfAbsent(trader, k -> new AtomicLong()).addAndGet(notional);
     }
 }
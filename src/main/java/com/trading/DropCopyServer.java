@@ -0,0 +1,90 @@
+package com.trading;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * TCP drop-copy feed of execution reports, served straight from the {@link ExecutionJournal}.
+ *
+ *   client -> server: [fromSeq:long]
+ *   server -> client: journal records, ExecutionJournal.RECORD_SIZE bytes each, in seq order
+ *
+ * A consumer starts at any sequence number (0 or 1 = from the beginning) and receives the
+ * backlog followed by live reports on the same stream. Sequence numbers have no gaps, so a
+ * consumer that sees one missing reconnects with the next seq it expects and is replayed from
+ * there. While idle the server sends a heartbeat record with seq 0 every second.
+ *
+ * One thread per consumer; a slow consumer only holds back its own blocking writes, since
+ * the journal itself is the buffer.
+ */
+public class DropCopyServer {
+
+    private static final int BATCH_RECORDS = 4096;
+    private static final long HEARTBEAT_MS = 1_000;
+
+    private final ExecutionJournal journal;
+    private final ExecutorService exec = Executors.newCachedThreadPool();
+
+    public DropCopyServer(ExecutionJournal journal) {
+        this.journal = journal;
+    }
+
+    public void start(int port) throws IOException {
+        ServerSocketChannel listener = ServerSocketChannel.open();
+        listener.bind(new InetSocketAddress(port));
+        Thread acceptor = new Thread(() -> {
+            while (listener.isOpen()) {
+                try {
+                    SocketChannel ch = listener.accept();
+                    ch.socket().setTcpNoDelay(true);
+                    exec.submit(() -> serve(ch));
+                } catch (IOException e) {
+                    System.err.println("Drop copy accept failed: " + e.getMessage());
+                }
+            }
+        }, "dropcopy-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        System.out.println("Drop copy feed listening on " + port + " (journal at seq " + journal.lastSeq() + ")");
+    }
+
+    private void serve(SocketChannel ch) {
+        try (ch) {
+            ByteBuffer request = ByteBuffer.allocate(Long.BYTES);
+            while (request.hasRemaining()) {
+                if (ch.read(request) < 0) return;
+            }
+            long next = Math.max(request.getLong(0), 1);
+            System.out.println("Drop copy " + ch.getRemoteAddress() + " from seq " + next);
+
+            ByteBuffer heartbeat = ByteBuffer.allocate(ExecutionJournal.RECORD_SIZE);
+            while (true) {
+                ByteBuffer records = journal.records(next, BATCH_RECORDS);
+                if (records.hasRemaining()) {
+                    next += records.remaining() / ExecutionJournal.RECORD_SIZE;
+                    writeFully(ch, records);
+                } else if (!journal.awaitAfter(next - 1, HEARTBEAT_MS)) {
+                    heartbeat.clear();
+                    heartbeat.putLong(0, 0).putLong(8, System.currentTimeMillis());
+                    writeFully(ch, heartbeat);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Drop copy consumer gone: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void writeFully(SocketChannel ch, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            ch.write(buf);
+        }
+    }
+}
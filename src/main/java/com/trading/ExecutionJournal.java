@@ -0,0 +1,159 @@
+package com.trading;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only, memory-mapped journal of execution reports with a global sequence number.
+ *
+ * Records are fixed size so a sequence number maps straight to a file offset; the journal is
+ * split into segment files of SEGMENT_RECORDS records each. Record layout (big-endian):
+ *
+ *   0  seq       long   1, 2, 3 ... without gaps
+ *   8  timestamp long   epoch millis
+ *   16 price     long   fixed-point, see Price
+ *   24 filledQty int
+ *   28 idLength  byte
+ *   29 tradeId   UTF-8, up to 64 bytes, zero padded to RECORD_SIZE
+ *
+ * The seq field is written last, so a record with a non-zero seq is complete; that is also how
+ * the end of the journal is found again after a restart.
+ */
+public class ExecutionJournal {
+
+    public static final int RECORD_SIZE = 96;
+    public static final int MAX_ID_BYTES = 64;
+    private static final int SEGMENT_RECORDS = 1 << 20;
+
+    private final Path dir;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private volatile long lastSeq;
+
+    public ExecutionJournal(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        while (Files.exists(segmentPath(segments.size()))) {
+            segments.add(map(segments.size()));
+        }
+        lastSeq = recoverLastSeq();
+    }
+
+    public long lastSeq() {
+        return lastSeq;
+    }
+
+    public synchronized long append(String tradeId, long price, int filledQty) {
+        byte[] id = tradeId.getBytes(StandardCharsets.UTF_8);
+        if (id.length > MAX_ID_BYTES) throw new IllegalArgumentException("Trade id too long for journal: " + tradeId);
+
+        long seq = lastSeq + 1;
+        ByteBuffer seg = segment(seq);
+        int off = offset(seq);
+        seg.putLong(off + 8, System.currentTimeMillis());
+        seg.putLong(off + 16, price);
+        seg.putInt(off + 24, filledQty);
+        seg.put(off + 28, (byte) id.length);
+        for (int i = 0; i < id.length; i++) seg.put(off + 29 + i, id[i]);
+        seg.putLong(off, seq);
+
+        lastSeq = seq;
+        notifyAll();
+        return seq;
+    }
+
+    /**
+     * Read-only view of up to {@code max} consecutive records starting at {@code fromSeq}
+     * (never crossing a segment). Empty when {@code fromSeq} is past the end of the journal.
+     */
+    public ByteBuffer records(long fromSeq, int max) {
+        long last = lastSeq;
+        if (fromSeq < 1) fromSeq = 1;
+        if (fromSeq > last) return ByteBuffer.allocate(0);
+
+        long segEnd = ((fromSeq - 1) / SEGMENT_RECORDS + 1) * SEGMENT_RECORDS;
+        long n = Math.min(Math.min(last - fromSeq + 1, max), segEnd - fromSeq + 1);
+
+        ByteBuffer view;
+        synchronized (this) {
+            view = segment(fromSeq).duplicate();
+        }
+        int off = offset(fromSeq);
+        view.limit(off + (int) n * RECORD_SIZE).position(off);
+        return view.slice().asReadOnlyBuffer();
+    }
+
+    /** Blocks until a record after {@code seq} exists or the timeout passes. */
+    public synchronized boolean awaitAfter(long seq, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (lastSeq <= seq) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0) return false;
+            wait(left);
+        }
+        return true;
+    }
+
+    // accessors for a record at byte offset {@code off} of a buffer returned by records()
+    public static long seq(ByteBuffer b, int off) { return b.getLong(off); }
+    public static long timestamp(ByteBuffer b, int off) { return b.getLong(off + 8); }
+    public static long price(ByteBuffer b, int off) { return b.getLong(off + 16); }
+    public static int filledQty(ByteBuffer b, int off) { return b.getInt(off + 24); }
+
+    public static String tradeId(ByteBuffer b, int off) {
+        byte[] id = new byte[b.get(off + 28)];
+        for (int i = 0; i < id.length; i++) id[i] = b.get(off + 29 + i);
+        return new String(id, StandardCharsets.UTF_8);
+    }
+
+    //----------------------------------------------------------------------
+
+    // caller holds the lock when it may need to add a segment
+    private MappedByteBuffer segment(long seq) {
+        int index = (int) ((seq - 1) / SEGMENT_RECORDS);
+        while (segments.size() <= index) {
+            try {
+                segments.add(map(segments.size()));
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot extend execution journal in " + dir, e);
+            }
+        }
+        return segments.get(index);
+    }
+
+    private static int offset(long seq) {
+        return (int) ((seq - 1) % SEGMENT_RECORDS) * RECORD_SIZE;
+    }
+
+    private MappedByteBuffer map(int index) throws IOException {
+        try (FileChannel ch = FileChannel.open(segmentPath(index),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return ch.map(FileChannel.MapMode.READ_WRITE, 0, (long) SEGMENT_RECORDS * RECORD_SIZE);
+        }
+    }
+
+    private Path segmentPath(int index) {
+        return dir.resolve(String.format("executions-%05d.journal", index));
+    }
+
+    // records are written in order, so binary search the last segment for the first empty slot
+    private long recoverLastSeq() {
+        if (segments.isEmpty()) return 0;
+        int index = segments.size() - 1;
+        ByteBuffer seg = segments.get(index);
+        long base = (long) index * SEGMENT_RECORDS;
+
+        int lo = 0, hi = SEGMENT_RECORDS;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (seg.getLong(mid * RECORD_SIZE) == base + mid + 1) lo = mid + 1;
+            else hi = mid;
+        }
+        return base + lo;
+    }
+}
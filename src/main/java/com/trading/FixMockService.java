@@ -1,16 +1,26 @@
 package com.trading;
 
+import com.trading.model.Price;
+
 import java.util.concurrent.ConcurrentHashMap;
 
 public class FixMockService {
 
     private final ConcurrentHashMap<String, String> fixReports = new ConcurrentHashMap<>();
+    // every report, in order, for drop-copy consumers (see DropCopyServer)
+    private final ExecutionJournal journal;
+
+    public FixMockService(ExecutionJournal journal) {
+        this.journal = journal;
+    }
 
-    public void createExecutionReport(String tradeId, double price, int qty) {
+    public void createExecutionReport(String tradeId, long price, int qty) {
+        long seq = journal.append(tradeId, price, qty);
         String fix =
                 "{ \"MsgType\": \"8\","
+                        + "\"seq\": " + seq + ","
                         + "\"tradeId\": \"" + tradeId + "\","
-                        + "\"price\": " + price + ","
+                        + "\"price\": " + Price.toString(price) + ","
                         + "\"filledQty\": " + qty + " }";
 
         fixReports.put(tradeId, fix);
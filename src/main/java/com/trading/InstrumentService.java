@@ -1,6 +1,7 @@
 package com.trading;
 
 import com.trading.model.Instrument;
+import com.trading.model.Price;
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -21,6 +22,13 @@ public class InstrumentService {
         String currency = isin.startsWith("US") ? "USD" :
                 isin.startsWith("GB") ? "GBP" : "JPY";
 
-        return Optional.of(new Instrument(isin, currency, yield, tenor));
+        return Optional.of(new Instrument(isin, currency, yield, tenor, tickSizeFor(isin)));
+    }
+
+    // minimum price increment by market: USD 1/64, GBP 0.001, everything else 0.01
+    public static long tickSizeFor(String isin) {
+        if (isin.startsWith("US")) return Price.SCALE / 64;
+        if (isin.startsWith("GB")) return Price.SCALE / 1_000;
+        return Price.SCALE / 100;
     }
 }
@@ -1,41 +1,78 @@
 package com.trading;
 
 import com.google.gson.Gson;
+import com.trading.json.JsonCodecs;
+import com.trading.json.JsonReader;
+import com.trading.json.JsonWriter;
+import com.trading.model.BulkCancelRequest;
+import com.trading.model.CancelRequest;
 import com.trading.model.MarketTick;
-import com.trading.model.Trade;
+import com.trading.model.OrderRequest;
 
 import com.sun.net.httpserver.HttpServer;
-import com.trading.model.TradeState;
 
 import java.net.InetSocketAddress;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class MainServer {
 
-    // Dedup map for duplicate trade prevention
-    private static final ConcurrentHashMap<String, String> dedupMap = new ConcurrentHashMap<>();
-
     public static void main(String[] args) throws Exception {
 
-        int port = 8080;
+        // overridable so several nodes can run on one host (see ClusterService)
+        int port = Integer.getInteger("port", 8080);
+        int wsPort = Integer.getInteger("ws.port", 8090);
+        int dropCopyPort = Integer.getInteger("dropcopy.port", 8095);
 
         // Initialize services
         InstrumentService instrumentService = new InstrumentService();
         MarketDataService market = new MarketDataService();
         CreditExposureService exposureService = new CreditExposureService();   // <-- correct service
-        FixMockService fixService = new FixMockService();
+        ClusterService cluster = ClusterService.fromSystemProperties();
+        // reopened on every start, so drop-copy sequence numbers carry on across restarts
+        ExecutionJournal journal = new ExecutionJournal(
+                Paths.get(System.getProperty("journal.dir", "journal"), "executions-" + cluster.self()));
+        FixMockService fixService = new FixMockService(journal);
         TradeService tradeService = new TradeService(market, instrumentService, exposureService, fixService);
+        TradeApi api = new TradeApi(instrumentService, exposureService, tradeService, fixService, cluster.tradeIdPrefix());
+
+        // Warm start from the last snapshot, then keep taking them (opt-in: -Dsnapshot.dir=...)
+        String snapshotDir = System.getProperty("snapshot.dir");
+        SnapshotService snapshots = snapshotDir == null ? null : new SnapshotService(
+                Paths.get(snapshotDir, "snapshot-" + cluster.self() + ".bin"),
+                tradeService, exposureService, api, market);
+        if (snapshots != null) snapshots.restore();
+
+        // Running aggregates start from whatever the snapshot restored, before anything executes
+        TradeAnalyticsService analytics = new TradeAnalyticsService(tradeService);
+
+        if (snapshots != null) {
+            snapshots.resumeOpenTrades();
+            snapshots.start(Long.getLong("snapshot.intervalSec", 30));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    snapshots.snapshot();
+                } catch (IOException e) {
+                    System.err.println("Final snapshot failed: " + e.getMessage());
+                }
+            }));
+        }
 
-        // Start mock market feed
+        // Accept requests forwarded by other nodes
+        cluster.start(api);
+
+        // Start mock market feed; readers are served from the pre-encoded cache
+        MarketSnapshotCache marketCache = new MarketSnapshotCache(market);
         market.start();
 
         // Start WebSocket feed
-        MarketWebSocketServer ws = new MarketWebSocketServer(8090, market);
+        MarketWebSocketServer ws = new MarketWebSocketServer(wsPort, marketCache, tradeService, journal);
         ws.start();
 
+        // Sequenced drop copy of every execution report
+        new DropCopyServer(journal).start(dropCopyPort);
+
         HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
         Gson gson = new Gson();
 
@@ -48,59 +85,25 @@ public class MainServer {
                 return;
             }
 
-            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
-            Map req = gson.fromJson(body, Map.class);
-
-            String isin = (String) req.get("isin");
-            String trader = (String) req.get("trader");
-            double limit = Double.parseDouble(req.get("limitPrice").toString());
-            int qty = ((Double) req.get("quantity")).intValue();
-
-            // Duplicate check
-            String payloadHash = Integer.toString(Objects.hash(isin, trader, qty, limit));
-            if (dedupMap.containsKey(payloadHash)) {
-                String existing = dedupMap.get(payloadHash);
-                sendJson(exchange, gson.toJson(Map.of("tradeId", existing, "state", "DUPLICATE")), 200);
-                return;
-            }
-
-            // Validate ISIN
-            var instrument = instrumentService.fetchByIsin(isin);
-            if (instrument.isEmpty()) {
-                sendJson(exchange, gson.toJson(Map.of("error", "Invalid ISIN")), 400);
-                return;
-            }
-            String tradeId = UUID.randomUUID().toString();
-
-            // Exposure check BEFORE trade creation
-            boolean allowed = exposureService.isAllowed(trader, qty, limit);
-
-            if (!allowed) {
-                Trade rejected = new Trade(tradeId, isin, trader, qty, limit);
-                rejected.setState(TradeState.REJECTED);
-                tradeService.storeTrade(rejected);
-
-                sendJson(exchange, gson.toJson(
-                        Map.of(
-                                "tradeId", tradeId,
-                                "state", "REJECTED",
-                                "reason", "Exposure breach"
-                        )), 200);
+            OrderRequest req;
+            try {
+                req = JsonCodecs.readOrder(JsonReader.local(exchange.getRequestBody()));
+            } catch (IllegalArgumentException e) {
+                sendJson(exchange, gson.toJson(Map.of("error", e.getMessage())), 400);
                 return;
             }
 
-
-            // Create Trade
-             tradeId = UUID.randomUUID().toString();
-            Trade t = tradeService.createTrade(tradeId, isin, trader, qty, limit);
-
-            // Dedup store
-            dedupMap.put(payloadHash, tradeId);
-
-            // Execute async (mock)
-            tradeService.submitForExecution(t);
-
-            sendJson(exchange, gson.toJson(Map.of("tradeId", tradeId, "state", t.getState().name())), 200);
+            String isin = req.getIsin();
+            String trader = req.getTrader();
+            long limit = req.getLimitPrice();
+            int qty = req.getQuantity();
+
+            // Route to the node owning this trader
+            String owner = cluster.ownerOfTrader(trader);
+            TradeApi.Reply reply = cluster.isSelf(owner)
+                    ? api.create(isin, trader, qty, limit)
+                    : cluster.forwardCreate(owner, isin, trader, qty, limit);
+            sendReply(exchange, reply);
         });
 
         //----------------------------------------------------------------------
@@ -113,10 +116,21 @@ public class MainServer {
                 return;
             }
             String isin = query.substring("isin=".length());
+            MarketSnapshotCache.Encoded cached = marketCache.tick(isin);
+            if (cached != null) {
+                sendCached(exchange, cached);
+                return;
+            }
+            // not priced by the feed (yet): default tick, encoded per request
             MarketTick tick = market.getLatest(isin);
-            sendJson(exchange, gson.toJson(tick), 200);
+            JsonWriter w = JsonWriter.local();
+            JsonCodecs.writeTick(w, tick);
+            sendJson(exchange, w, 200);
         });
 
+        // every latest tick in one array, same document the WebSocket pushes
+        server.createContext("/api/trades/market/all", exchange -> sendCached(exchange, marketCache.all()));
+
         //----------------------------------------------------------------------
         // 3️⃣ EXPOSURE CHECK — used by Robot keyword Validate Trader Exposure
         //----------------------------------------------------------------------
@@ -131,14 +145,10 @@ public class MainServer {
 
                 String trader = query.substring("trader=".length());
 
-                Map<String, Object> resp = Map.of(
-                        "trader", trader,
-                        "currentExposure", exposureService.getExposure(trader),
-                        "limit", exposureService.getLimit(trader),
-                        "allowed", exposureService.isAllowed(trader, 0, 0)
-                );
-
-                sendJson(exchange, gson.toJson(resp), 200);
+                String owner = cluster.ownerOfTrader(trader);
+                sendReply(exchange, cluster.isSelf(owner)
+                        ? api.exposure(trader)
+                        : cluster.forwardExposure(owner, trader));
 
             } catch (Exception e) {
                 sendJson(exchange, gson.toJson(Map.of("error", e.getMessage())), 500);
@@ -155,17 +165,18 @@ public class MainServer {
                 return;
             }
             String id = query.substring("id=".length());
-            var opt = tradeService.find(id);
-            Object responseObj = opt.isPresent() ? opt.get() : Map.of("error", "not found");
-            sendJson(exchange, gson.toJson(responseObj), 200);
+            String owner = cluster.ownerOfTrade(id);
+            sendReply(exchange, cluster.isSelf(owner)
+                    ? api.get(id)
+                    : cluster.forwardGet(owner, id));
         });
 
         //----------------------------------------------------------------------
         // 5️⃣ GET ALL TRADES (Dashboard)
         //----------------------------------------------------------------------
         server.createContext("/api/trades/all", exchange -> {
-            Collection<Trade> all = tradeService.getAllTrades();
-            sendJson(exchange, gson.toJson(all), 200);
+            // scatter-gather across the cluster (just the local store when standalone)
+            sendReply(exchange, cluster.isEnabled() ? cluster.gatherAllTrades(api) : api.allTrades());
         });
 
         //----------------------------------------------------------------------
@@ -176,11 +187,58 @@ public class MainServer {
                 exchange.sendResponseHeaders(405, -1);
                 return;
             }
-            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
-            Map req = gson.fromJson(body, Map.class);
-            String id = (String) req.get("id");
-            boolean ok = tradeService.cancel(id);
-            sendJson(exchange, gson.toJson(Map.of("cancelled", ok)), 200);
+            CancelRequest req;
+            try {
+                req = JsonCodecs.readCancel(JsonReader.local(exchange.getRequestBody()));
+            } catch (IllegalArgumentException e) {
+                sendJson(exchange, gson.toJson(Map.of("error", e.getMessage())), 400);
+                return;
+            }
+            String id = req.getId();
+            String owner = cluster.ownerOfTrade(id);
+            sendReply(exchange, cluster.isSelf(owner)
+                    ? api.cancel(id)
+                    : cluster.forwardCancel(owner, id));
+        });
+
+        //----------------------------------------------------------------------
+        // 6️⃣ MASS CANCEL — by trader, ISIN and/or state
+        //----------------------------------------------------------------------
+        server.createContext("/api/trades/cancel/bulk", exchange -> {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            BulkCancelRequest req;
+            try {
+                req = JsonCodecs.readBulkCancel(JsonReader.local(exchange.getRequestBody()));
+            } catch (IllegalArgumentException e) {
+                sendJson(exchange, gson.toJson(Map.of("error", e.getMessage())), 400);
+                return;
+            }
+            String trader = req.getTrader();
+            if (trader == null && req.getIsin() == null && req.getState() == null) {
+                sendJson(exchange, gson.toJson(Map.of("error", "trader, isin or state required")), 400);
+                return;
+            }
+            if ((trader != null && trader.isBlank()) || (req.getIsin() != null && req.getIsin().isBlank())) {
+                sendJson(exchange, gson.toJson(Map.of("error", "trader and isin must not be blank")), 400);
+                return;
+            }
+
+            // a trader lives on one node; anything wider is cancelled on all of them
+            TradeApi.Reply reply;
+            if (trader != null) {
+                String owner = cluster.ownerOfTrader(trader);
+                reply = cluster.isSelf(owner)
+                        ? api.cancelBulk(trader, req.getIsin(), req.getState())
+                        : cluster.forwardCancelBulk(owner, trader, req.getIsin(), req.getState());
+            } else {
+                reply = cluster.isEnabled()
+                        ? cluster.cancelBulkEverywhere(api, req.getIsin(), req.getState())
+                        : api.cancelBulk(null, req.getIsin(), req.getState());
+            }
+            sendReply(exchange, reply);
         });
 
         //----------------------------------------------------------------------
@@ -193,8 +251,15 @@ public class MainServer {
                 return;
             }
             String isin = query.substring("isin=".length());
-            double avg = market.getAveragePrice(isin, 5);
-            sendJson(exchange, gson.toJson(Map.of("isin", isin, "average", avg)), 200);
+            MarketSnapshotCache.Encoded cached = marketCache.average(isin);
+            if (cached != null) {
+                sendCached(exchange, cached);
+                return;
+            }
+            long avg = market.getAveragePrice(isin, 5);
+            JsonWriter w = JsonWriter.local();
+            JsonCodecs.writeAverage(w, isin, avg);
+            sendJson(exchange, w, 200);
         });
 
         //----------------------------------------------------------------------
@@ -207,25 +272,34 @@ public class MainServer {
                 return;
             }
             String id = query.substring("tradeId=".length());
-            String fix = fixService.getExecutionReport(id);
-
-            if (fix == null)
-                sendJson(exchange, gson.toJson(Map.of("error", "no fix")), 404);
-            else
-                sendJson(exchange, fix, 200);
+            String owner = cluster.ownerOfTrade(id);
+            sendReply(exchange, cluster.isSelf(owner)
+                    ? api.execution(id)
+                    : cluster.forwardExecution(owner, id));
         });
 
         //----------------------------------------------------------------------
         // 9️⃣ DASHBOARD HTML
         //----------------------------------------------------------------------
         server.createContext("/dashboard", exchange -> {
-            String html = dashboardHtml();
+            String html = dashboardHtml(wsPort);
             exchange.getResponseHeaders().set("Content-Type", "text/html");
             exchange.sendResponseHeaders(200, html.getBytes().length);
             exchange.getResponseBody().write(html.getBytes());
             exchange.getResponseBody().close();
         });
 
+        //----------------------------------------------------------------------
+        // 🔟 ANALYTICS — running intraday figures, ?mode=eod for a full recompute
+        //----------------------------------------------------------------------
+        server.createContext("/api/analytics", exchange -> {
+            var query = exchange.getRequestURI().getQuery();
+            boolean eod = "eod".equals(queryParam(query, "mode"));
+            JsonWriter w = JsonWriter.local();
+            JsonCodecs.writeAnalytics(w, eod ? analytics.endOfDay() : analytics.intraday());
+            sendJson(exchange, w, 200);
+        });
+
         //----------------------------------------------------------------------
         // START SERVER
         //----------------------------------------------------------------------
@@ -233,8 +307,8 @@ public class MainServer {
         server.start();
 
         System.out.println("Server running → http://localhost:" + port);
-        System.out.println("WebSocket running → ws://localhost:8090");
-        System.out.println("Dashboard → http://localhost:8080/dashboard");
+        System.out.println("WebSocket running → ws://localhost:" + wsPort);
+        System.out.println("Dashboard → http://localhost:" + port + "/dashboard");
     }
 
 
@@ -244,7 +318,51 @@ public class MainServer {
         ex.getResponseBody().write(json.getBytes());
         ex.getResponseBody().close();
     }
-    private static String dashboardHtml() {
+
+    // writes straight from the thread's reusable encode buffer
+    private static void sendJson(com.sun.net.httpserver.HttpExchange ex, JsonWriter w, int status) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        ex.sendResponseHeaders(status, w.size());
+        w.writeTo(ex.getResponseBody());
+        ex.getResponseBody().close();
+    }
+
+    // shared pre-encoded bytes; answers 304 when the client already has this version
+    private static void sendCached(com.sun.net.httpserver.HttpExchange ex, MarketSnapshotCache.Encoded doc) throws IOException {
+        String etag = doc.getEtag();
+        ex.getResponseHeaders().set("ETag", etag);
+        ex.getResponseHeaders().set("Cache-Control", "no-cache");
+        String ifNoneMatch = ex.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            ex.sendResponseHeaders(304, -1);
+            ex.close();
+            return;
+        }
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        ex.sendResponseHeaders(200, doc.getBytes().length);
+        ex.getResponseBody().write(doc.getBytes());
+        ex.getResponseBody().close();
+    }
+
+    private static void sendReply(com.sun.net.httpserver.HttpExchange ex, TradeApi.Reply reply) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        ex.sendResponseHeaders(reply.getStatus(), reply.getBody().length);
+        ex.getResponseBody().write(reply.getBody());
+        ex.getResponseBody().close();
+    }
+
+    // value of the first name=value pair in an already decoded query string, or null
+    private static String queryParam(String query, String name) {
+        if (query == null) return null;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            if (key.equals(name)) return eq < 0 ? "" : pair.substring(eq + 1);
+        }
+        return null;
+    }
+
+    private static String dashboardHtml(int wsPort) {
         String html =
                 "<!doctype html>\n" +
                         "<html>\n" +
@@ -256,21 +374,39 @@ public class MainServer {
                         "  <pre id=\"trades\">No data</pre>\n" +
                         "</div>\n" +
                         "<div>\n" +
-                        "  <h3>WebSocket Market Stream (port 8090)</h3>\n" +
+                        "  <h3>WebSocket Market Stream (port " + wsPort + ")</h3>\n" +
                         "  <pre id=\"ws\">No WS messages</pre>\n" +
                         "</div>\n" +
                         "<script>\n" +
+                        "  // trade blotter kept up to date from the WebSocket trade channel\n" +
+                        "  const trades = {};\n" +
+                        "  function renderTrades(){\n" +
+                        "    document.getElementById('trades').textContent = JSON.stringify(Object.values(trades), null, 2);\n" +
+                        "  }\n" +
                         "  function refreshTrades(){\n" +
                         "    fetch('/api/trades/all').then(r=>r.json()).then(d=>{\n" +
                         "      document.getElementById('trades').textContent = JSON.stringify(d, null, 2);\n" +
                         "    });\n" +
                         "  }\n" +
-                        "  refreshTrades();\n" +
-                        "  const ws = new WebSocket('ws://localhost:8090');\n" +
-                        "  ws.onopen = ()=> console.log('ws open');\n" +
+                        "  const ws = new WebSocket('ws://' + location.hostname + ':" + wsPort + "');\n" +
+                        "  ws.onopen = ()=> ws.send(JSON.stringify({subscribe: 'trades'}));\n" +
                         "  ws.onmessage = (m)=> {\n" +
-                        "    document.getElementById('ws').textContent = m.data;\n" +
-                        "    refreshTrades();\n" +
+                        "    const msg = JSON.parse(m.data);\n" +
+                        "    if (Array.isArray(msg)) {\n" +
+                        "      document.getElementById('ws').textContent = m.data;\n" +
+                        "      return;\n" +
+                        "    }\n" +
+                        "    if (msg.type === 'snapshot') {\n" +
+                        "      for (const k in trades) delete trades[k];\n" +
+                        "      msg.trades.forEach(t => trades[t.tradeId] = t);\n" +
+                        "    } else if (msg.type === 'trades') {\n" +
+                        "      // a late event from a racing thread must not overwrite a newer one\n" +
+                        "      msg.events.forEach(e => {\n" +
+                        "        const cur = trades[e.tradeId];\n" +
+                        "        if (!cur || cur.seq < e.seq) trades[e.tradeId] = e;\n" +
+                        "      });\n" +
+                        "    }\n" +
+                        "    renderTrades();\n" +
                         "  };\n" +
                         "  ws.onerror = (e)=> console.error(e);\n" +
                         "</script>\n" +
@@ -1,15 +1,21 @@
 package com.trading;
 
 import com.trading.model.MarketTick;
+import com.trading.model.Price;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class MarketDataService {
 
     private final ConcurrentHashMap<String, MarketTick> ticks = new ConcurrentHashMap<>();
     private final Random rnd = new Random();
 
+    // bumped after every price update; listeners (e.g. MarketSnapshotCache) run right after
+    private final AtomicLong version = new AtomicLong();
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+
     private final List<String> sampleIsins =
             Arrays.asList("US0001", "US0002", "US0003", "DE0001", "IN0001");
 
@@ -21,20 +27,46 @@ public class MarketDataService {
     /** Generate new prices randomly */
     private void updateTicks() {
         for (String isin : sampleIsins) {
-            double price = 80 + rnd.nextDouble() * 40;
+            long price = Price.roundToTick(Price.of(80 + rnd.nextDouble() * 40), InstrumentService.tickSizeFor(isin));
             ticks.put(isin, new MarketTick(isin, price, System.currentTimeMillis()));
         }
+        publishChange();
+    }
+
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    private void publishChange() {
+        version.incrementAndGet();
+        for (Runnable l : changeListeners) {
+            try {
+                l.run();
+            } catch (Exception e) {
+                System.err.println("Market listener failed: " + e.getMessage());
+            }
+        }
     }
 
     public MarketTick getLatest(String isin) {
         return ticks.getOrDefault(isin,
-                new MarketTick(isin, 100, System.currentTimeMillis()));
+                new MarketTick(isin, 100 * Price.SCALE, System.currentTimeMillis()));
     }
 
-    public double getAveragePrice(String isin, int window) {
-        // simple: use last price +/- random small variation
+    public long getAveragePrice(String isin, int window) {
+        // simple: use last price +/- random small variation (98% .. 102%)
         MarketTick t = getLatest(isin);
-        return t.getPrice() * (0.98 + rnd.nextDouble() * 0.04);
+        return Price.scaleBps(t.getPrice(), 9_800 + rnd.nextInt(401));
+    }
+
+    // snapshot restore; the live feed overwrites it on its next update
+    public void restoreTick(MarketTick tick) {
+        ticks.put(tick.getIsin(), tick);
+        publishChange();
     }
 
     public Set<String> getAllIsins() {
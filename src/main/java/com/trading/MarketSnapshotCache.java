@@ -0,0 +1,114 @@
+package com.trading;
+
+import com.trading.json.JsonCodecs;
+import com.trading.json.JsonWriter;
+import com.trading.model.MarketTick;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.*;
+
+/**
+ * Pre-encoded market data, shared by every HTTP and WebSocket reader.
+ *
+ * Holds the JSON of each ISIN's latest tick and market average, and of the full tick array,
+ * tagged with the MarketDataService version they were built from. The snapshot is rebuilt only
+ * when the market publishes a change (ISINs whose tick did not change keep their bytes and
+ * ETag), so serving a read never encodes anything, however many clients poll.
+ */
+public class MarketSnapshotCache {
+
+    // the market version restarts at 0 in every process; without this a client's ETag from
+    // before a restart, or from another node behind the same balancer, could match other prices
+    private static final String EPOCH = Long.toHexString(new SecureRandom().nextLong());
+
+    /** Encoded JSON document; the bytes are shared by all readers and must not be modified. */
+    public static class Encoded {
+        private final byte[] bytes;
+        private final String etag;
+        private final long version;
+        private volatile String text;
+
+        Encoded(JsonWriter w, String tag, long version) {
+            this.bytes = w.toByteArray();
+            this.etag = "\"" + tag + "-" + EPOCH + "-" + version + "\"";
+            this.version = version;
+        }
+
+        public byte[] getBytes() { return bytes; }
+        public String getEtag() { return etag; }
+        public long getVersion() { return version; }
+
+        // WebSocket text frames want a String; decoded once, on first use
+        public String getText() {
+            String s = text;
+            if (s == null) text = s = new String(bytes, StandardCharsets.UTF_8);
+            return s;
+        }
+    }
+
+    private static class Snapshot {
+        final Map<String, MarketTick> ticks = new HashMap<>();
+        final Map<String, Encoded> tick = new HashMap<>();
+        final Map<String, Encoded> average = new HashMap<>();
+        Encoded all;
+    }
+
+    private final MarketDataService market;
+    private volatile Snapshot current;
+
+    public MarketSnapshotCache(MarketDataService market) {
+        this.market = market;
+        market.addChangeListener(this::refresh);
+        refresh();
+    }
+
+    /** Latest tick of a quoted ISIN, or null if the feed has never priced it. */
+    public Encoded tick(String isin) {
+        return current.tick.get(isin);
+    }
+
+    /** Market average of a quoted ISIN as of the latest tick, or null. */
+    public Encoded average(String isin) {
+        return current.average.get(isin);
+    }
+
+    /** All latest ticks as one JSON array. */
+    public Encoded all() {
+        return current.all;
+    }
+
+    // serialized so snapshots are installed in version order
+    private synchronized void refresh() {
+        long version = market.getVersion();
+        Snapshot prev = current;
+        Snapshot next = new Snapshot();
+
+        List<String> isins = new ArrayList<>(market.getAllIsins());
+        Collections.sort(isins);
+        List<MarketTick> ticks = new ArrayList<>(isins.size());
+        for (String isin : isins) {
+            MarketTick t = market.getLatest(isin);
+            ticks.add(t);
+            next.ticks.put(isin, t);
+
+            if (prev != null && prev.ticks.get(isin) == t) {
+                next.tick.put(isin, prev.tick.get(isin));
+                next.average.put(isin, prev.average.get(isin));
+                continue;
+            }
+            JsonWriter w = JsonWriter.local();
+            JsonCodecs.writeTick(w, t);
+            next.tick.put(isin, new Encoded(w, isin, version));
+
+            w = JsonWriter.local();
+            JsonCodecs.writeAverage(w, isin, market.getAveragePrice(isin, 5));
+            next.average.put(isin, new Encoded(w, isin + "-avg", version));
+        }
+
+        JsonWriter w = JsonWriter.local();
+        JsonCodecs.writeTicks(w, ticks);
+        next.all = new Encoded(w, "all", version);
+        current = next;
+    }
+}
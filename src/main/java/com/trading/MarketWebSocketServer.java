@@ -1,46 +1,111 @@
 package com.trading;
 
-import com.trading.model.MarketTick;
+import com.trading.json.JsonCodecs;
+import com.trading.json.JsonWriter;
+import com.trading.model.TradeEvent;
+import com.trading.model.Trade;
 import com.google.gson.Gson;
 import org.java_websocket.WebSocket;
 import org.java_websocket.server.WebSocketServer;
 import org.java_websocket.handshake.ClientHandshake;
 
 import java.net.InetSocketAddress;
-import java.util.Collection;
-import java.util.Set;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
  * WebSocket server that broadcasts market ticks periodically.
  * Listens on port 8090.
+ *
+ * Ticks come pre-encoded from the MarketSnapshotCache; each client is sent a market version
+ * once, and all clients due for the same version share a single encoded frame.
+ *
+ * Clients that send {"subscribe":"trades"} also get the trade channel: one snapshot
+ * of the blotter, then only lifecycle transitions. Pending events are conflated per
+ * trade while the socket still has unsent data; a client that falls too far behind
+ * is disconnected instead of being buffered without limit. Events of one trade may reach
+ * the client out of order, so it keeps the one with the highest seq, as the queue does.
+ *
+ * Clients that send {"subscribe":"executions","fromSeq":N} get the drop-copy feed: every
+ * execution report from seq N on, replayed from the ExecutionJournal and then live. Each
+ * report carries its seq; on a gap the client simply subscribes again from the seq it
+ * expected. The journal is the buffer, so a slow client just lags instead of being dropped.
  */
 public class MarketWebSocketServer extends WebSocketServer {
 
-    private final MarketDataService market;
+    // distinct trades a subscriber may have pending before it is dropped
+    private static final int MAX_PENDING_EVENTS = 10_000;
+    private static final int SLOW_CONSUMER_CLOSE_CODE = 1008;
+
+    private static final byte[] TYPE = JsonWriter.key("type");
+    private static final byte[] SEQ = JsonWriter.key("seq");
+    private static final byte[] TRADES = JsonWriter.key("trades");
+    private static final byte[] EVENTS = JsonWriter.key("events");
+    private static final byte[] REPORTS = JsonWriter.key("reports");
+
+    // execution reports per frame, and frames per subscriber per pump
+    private static final int EXECUTION_BATCH = 2_000;
+    private static final int EXECUTION_FRAMES_PER_PUMP = 8;
+
+    private final MarketSnapshotCache marketCache;
+    private final TradeService tradeService;
+    private final ExecutionJournal journal;
     private final Gson gson = new Gson();
 
-    public MarketWebSocketServer(int port, MarketDataService market) {
+    // market version last sent to each client
+    private final ConcurrentHashMap<WebSocket, Long> tickVersions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<WebSocket, TradeSubscriber> tradeSubscribers = new ConcurrentHashMap<>();
+    // next journal seq to send, per execution subscriber
+    private final ConcurrentHashMap<WebSocket, Long> executionSubscribers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    public MarketWebSocketServer(int port, MarketSnapshotCache marketCache, TradeService tradeService,
+                                 ExecutionJournal journal) {
         super(new InetSocketAddress(port));
-        this.market = market;
+        this.marketCache = marketCache;
+        this.tradeService = tradeService;
+        this.journal = journal;
+        tradeService.addStateListener(this::publishTradeEvent);
         // schedule broadcaster
-        Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(this::broadcastTicks, 0, 300, TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(this::broadcastTicks, 0, 300, TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(this::flushTradeEvents, 100, 100, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::pumpExecutions, 20, 20, TimeUnit.MILLISECONDS);
     }
 
     @Override
     public void onOpen(WebSocket conn, ClientHandshake handshake) {
+        tickVersions.put(conn, -1L);
         System.out.println("WS Open: " + conn.getRemoteSocketAddress());
     }
 
     @Override
     public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+        tickVersions.remove(conn);
+        tradeSubscribers.remove(conn);
+        executionSubscribers.remove(conn);
         System.out.println("WS Close: " + conn.getRemoteSocketAddress());
     }
 
     @Override
     public void onMessage(WebSocket conn, String message) {
-        // optional: handle simple subscribe messages from client
+        // simple subscribe messages from client, e.g. {"subscribe":"trades"}
+        try {
+            Map<?, ?> req = gson.fromJson(message, Map.class);
+            if (req != null && "trades".equals(req.get("subscribe"))) {
+                subscribeTrades(conn);
+                return;
+            }
+            if (req != null && "executions".equals(req.get("subscribe"))) {
+                Object from = req.get("fromSeq");
+                long fromSeq = from instanceof Number ? ((Number) from).longValue() : 1;
+                executionSubscribers.put(conn, Math.max(fromSeq, 1));
+                return;
+            }
+        } catch (Exception ignored) {}
         System.out.println("WS Msg from " + conn.getRemoteSocketAddress() + ": " + message);
     }
 
@@ -59,14 +124,142 @@ public class MarketWebSocketServer extends WebSocketServer {
             Collection<WebSocket> conns = getConnections();
             if (conns == null || conns.isEmpty()) return;
             // send all ticks as an array
-            var isins = market.getAllIsins();
-            var ticks = isins.stream().map(market::getLatest).toArray();
-            String json = gson.toJson(ticks);
+            MarketSnapshotCache.Encoded ticks = marketCache.all();
+            long version = ticks.getVersion();
+            List<WebSocket> due = new ArrayList<>();
             for (WebSocket c : conns) {
-                c.send(json);
+                // a client still draining the previous frame just gets the next one
+                if (c.hasBufferedData()) continue;
+                Long sent = tickVersions.get(c);
+                if (sent == null || sent == version) continue;
+                if (tickVersions.replace(c, sent, version)) due.add(c);
             }
+            if (!due.isEmpty()) broadcast(ticks.getText(), due);
         } catch (Exception e) {
             System.err.println("Error broadcasting ticks: " + e.getMessage());
         }
     }
+
+    //----------------------------------------------------------------------
+    // Trade channel
+    //----------------------------------------------------------------------
+
+    private void subscribeTrades(WebSocket conn) {
+        TradeSubscriber sub = new TradeSubscriber(conn);
+        // register first so nothing published after the snapshot is missed
+        if (tradeSubscribers.putIfAbsent(conn, sub) != null) return;
+
+        // every trade is at least as new as this seq; events after it supersede its entry
+        long seq = tradeService.lastEventSeq();
+        List<TradeEvent> trades = new ArrayList<>();
+        for (Trade t : tradeService.getAllTrades()) {
+            synchronized (t) {
+                trades.add(TradeEvent.of(seq, t, null));
+            }
+        }
+        JsonWriter w = JsonWriter.local();
+        w.beginObject().name(TYPE).value("snapshot").name(SEQ).value(seq).name(TRADES);
+        JsonCodecs.writeTradeEvents(w, trades);
+        conn.send(w.endObject().asString());
+        // only now may the flush thread drain; otherwise a newer batch could overtake the snapshot
+        sub.snapshotSeq = seq;
+    }
+
+    // ev was captured with its seq under the trade's lock; t itself may have moved on already
+    private void publishTradeEvent(Trade t, TradeEvent ev) {
+        if (tradeSubscribers.isEmpty()) return;
+
+        for (TradeSubscriber sub : tradeSubscribers.values()) {
+            if (!sub.offer(ev)) {
+                tradeSubscribers.remove(sub.conn);
+                sub.conn.close(SLOW_CONSUMER_CLOSE_CODE, "slow consumer");
+            }
+        }
+    }
+
+    private void flushTradeEvents() {
+        try {
+            for (TradeSubscriber sub : tradeSubscribers.values()) {
+                if (!sub.conn.isOpen() || sub.conn.hasBufferedData()) continue;
+                List<TradeEvent> events = sub.drain();
+                if (events.isEmpty()) continue;
+                JsonWriter w = JsonWriter.local();
+                w.beginObject().name(TYPE).value("trades").name(EVENTS);
+                JsonCodecs.writeTradeEvents(w, events);
+                sub.conn.send(w.endObject().asString());
+            }
+        } catch (Exception e) {
+            System.err.println("Error flushing trade events: " + e.getMessage());
+        }
+    }
+
+    /** Bounded, per-trade conflating outbound queue for one client. */
+    private static class TradeSubscriber {
+        private final WebSocket conn;
+        private final LinkedHashMap<String, TradeEvent> pending = new LinkedHashMap<>();
+        private volatile long snapshotSeq = Long.MAX_VALUE;
+
+        TradeSubscriber(WebSocket conn) {
+            this.conn = conn;
+        }
+
+        // false when the client is too far behind and should be dropped
+        synchronized boolean offer(TradeEvent ev) {
+            // listeners of one trade can run out of order; never let an older event replace a newer one
+            TradeEvent queued = pending.get(ev.getTradeId());
+            if (queued != null && queued.getSeq() > ev.getSeq()) return true;
+            // re-insert so the map stays in seq order
+            pending.remove(ev.getTradeId());
+            pending.put(ev.getTradeId(), ev);
+            return pending.size() <= MAX_PENDING_EVENTS;
+        }
+
+        synchronized List<TradeEvent> drain() {
+            // events up to the snapshot seq are already reflected in the snapshot
+            long since = snapshotSeq;
+            if (since == Long.MAX_VALUE) return List.of();
+
+            List<TradeEvent> out = new ArrayList<>(pending.size());
+            for (TradeEvent ev : pending.values()) {
+                if (ev.getSeq() > since) out.add(ev);
+            }
+            pending.clear();
+            return out;
+        }
+    }
+
+    //----------------------------------------------------------------------
+    // Drop-copy execution channel
+    //----------------------------------------------------------------------
+
+    private void pumpExecutions() {
+        try {
+            for (Map.Entry<WebSocket, Long> e : executionSubscribers.entrySet()) {
+                WebSocket conn = e.getKey();
+                long next = e.getValue();
+                for (int frame = 0; frame < EXECUTION_FRAMES_PER_PUMP; frame++) {
+                    if (!conn.isOpen() || conn.hasBufferedData()) break;
+                    ByteBuffer records = journal.records(next, EXECUTION_BATCH);
+                    if (!records.hasRemaining()) break;
+
+                    JsonWriter w = JsonWriter.local();
+                    w.beginObject().name(TYPE).value("executions").name(REPORTS).beginArray();
+                    for (int off = 0; off < records.limit(); off += ExecutionJournal.RECORD_SIZE) {
+                        JsonCodecs.writeExecution(w,
+                                ExecutionJournal.seq(records, off),
+                                ExecutionJournal.tradeId(records, off),
+                                ExecutionJournal.price(records, off),
+                                ExecutionJournal.filledQty(records, off),
+                                ExecutionJournal.timestamp(records, off));
+                    }
+                    conn.send(w.endArray().endObject().asString());
+                    next += records.limit() / ExecutionJournal.RECORD_SIZE;
+                }
+                // only advance if the client did not resubscribe meanwhile
+                executionSubscribers.replace(conn, e.getValue(), next);
+            }
+        } catch (Exception e) {
+            System.err.println("Error pumping executions: " + e.getMessage());
+        }
+    }
 }
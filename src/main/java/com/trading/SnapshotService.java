@@ -0,0 +1,362 @@
+package com.trading;
+
+import com.trading.model.MarketTick;
+import com.trading.model.Trade;
+import com.trading.model.TradeState;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Periodic binary snapshots of trades, exposures, the dedup map and last ticks, for warm restarts.
+ *
+ * File layout: [magic:int][version:int][createdAt:long] then sections until EOF, each
+ *   [type:byte][records:int][length:int][records, DataOutput encoded]
+ * Trades and dedup entries are split into many sections of at most CHUNK records, so the
+ * restore can map each section on its own and decode them in parallel.
+ *
+ * Snapshots run on a background thread while orders keep flowing; every trade is copied
+ * under its own lock, which Trade's mutators and TradeService's multi-field updates also
+ * take, so records are individually consistent (not a global cut).
+ */
+public class SnapshotService {
+
+    private static final int MAGIC = 0x54524e53;    // "TRNS"
+    private static final int VERSION = 1;
+    private static final int CHUNK = 65_536;
+
+    private static final byte SECTION_TICKS = 1;
+    private static final byte SECTION_EXPOSURES = 2;
+    private static final byte SECTION_DEDUP = 3;
+    private static final byte SECTION_TRADES = 4;
+
+    private static final TradeState[] STATES = TradeState.values();
+
+    private final Path file;
+    private final TradeService tradeService;
+    private final CreditExposureService exposureService;
+    private final TradeApi api;
+    private final MarketDataService market;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    public SnapshotService(Path file,
+                           TradeService tradeService,
+                           CreditExposureService exposureService,
+                           TradeApi api,
+                           MarketDataService market) {
+        this.file = file;
+        this.tradeService = tradeService;
+        this.exposureService = exposureService;
+        this.api = api;
+        this.market = market;
+    }
+
+    public void start(long intervalSeconds) {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot();
+            } catch (Exception e) {
+                System.err.println("Snapshot failed: " + e.getMessage());
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    //----------------------------------------------------------------------
+    // Write
+    //----------------------------------------------------------------------
+
+    public synchronized void snapshot() throws IOException {
+        long start = System.currentTimeMillis();
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        // dedup first: TradeApi stores a trade before its dedup entry, so every entry copied
+        // here has its trade in the copy below and a restored DUPLICATE always resolves
+        List<Map.Entry<String, String>> dedup = new ArrayList<>(api.getDedupMap().entrySet());
+        List<Trade> trades = new ArrayList<>(tradeService.getAllTrades());
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(start);
+
+            writeSection(out, SECTION_TICKS, encodeTicks());
+            writeSection(out, SECTION_EXPOSURES, encodeExposures());
+
+            // encode chunks in parallel, a bounded batch at a time so memory stays ~ one batch
+            int batch = Runtime.getRuntime().availableProcessors() * 2;
+            List<int[]> tradeChunks = chunks(trades.size());
+            for (int i = 0; i < tradeChunks.size(); i += batch) {
+                List<Encoded> encoded = tradeChunks.subList(i, Math.min(i + batch, tradeChunks.size()))
+                        .parallelStream()
+                        .map(c -> encodeTrades(trades.subList(c[0], c[1])))
+                        .collect(Collectors.toList());
+                for (Encoded e : encoded) writeSection(out, SECTION_TRADES, e);
+            }
+            for (int[] c : chunks(dedup.size())) {
+                writeSection(out, SECTION_DEDUP, encodeDedup(dedup.subList(c[0], c[1])));
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        System.out.println("Snapshot: " + trades.size() + " trades → " + file
+                + " in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private Encoded encodeTicks() {
+        Encoded e = new Encoded(256);
+        for (String isin : market.getAllIsins()) {
+            MarketTick t = market.getLatest(isin);
+            e.putString(t.getIsin());
+            e.ensure(16).putLong(t.getPrice()).putLong(t.getTimestamp());
+            e.records++;
+        }
+        return e;
+    }
+
+    private Encoded encodeExposures() {
+        Encoded e = new Encoded(256);
+        for (Map.Entry<String, Long> x : exposureService.getExposures().entrySet()) {
+            e.putString(x.getKey());
+            e.ensure(8).putLong(x.getValue());
+            e.records++;
+        }
+        return e;
+    }
+
+    private static Encoded encodeDedup(List<Map.Entry<String, String>> entries) {
+        Encoded e = new Encoded(entries.size() * 64);
+        for (Map.Entry<String, String> x : entries) {
+            e.putString(x.getKey());
+            e.putString(x.getValue());
+            e.records++;
+        }
+        return e;
+    }
+
+    private static Encoded encodeTrades(List<Trade> trades) {
+        Encoded e = new Encoded(trades.size() * 192);
+        for (Trade t : trades) {
+            // trades are mutated by execution threads; take each one as a whole
+            synchronized (t) {
+                e.putString(t.getId());
+                e.putString(t.getIsin());
+                e.putString(t.getTrader());
+                e.ensure(47)
+                        .putInt(t.getQuantity())
+                        .putLong(t.getLimitPrice())
+                        .putLong(t.getExecutionPrice())
+                        .putInt(t.getFilled())
+                        .putInt(t.getRetryCount())
+                        .putLong(t.getExecutionStartTime())
+                        .putLong(t.getExecutionEndTime())
+                        .put((byte) t.getState().ordinal());
+                List<String> history = t.getHistory();
+                int n = Math.min(history.size(), 0xffff);
+                e.ensure(2).putShort((short) n);
+                for (int i = 0; i < n; i++) e.putString(history.get(i));
+            }
+            e.records++;
+        }
+        return e;
+    }
+
+    private static void writeSection(DataOutputStream out, byte type, Encoded e) throws IOException {
+        out.writeByte(type);
+        out.writeInt(e.records);
+        out.writeInt(e.buf.position());
+        out.write(e.buf.array(), 0, e.buf.position());
+    }
+
+    private static List<int[]> chunks(int size) {
+        List<int[]> out = new ArrayList<>();
+        for (int from = 0; from < size; from += CHUNK) {
+            out.add(new int[]{from, Math.min(size, from + CHUNK)});
+        }
+        return out;
+    }
+
+    /** Growable heap buffer for one section. */
+    private static class Encoded {
+        private ByteBuffer buf;
+        private int records;
+
+        Encoded(int capacity) {
+            buf = ByteBuffer.allocate(Math.max(capacity, 64));
+        }
+
+        ByteBuffer ensure(int n) {
+            if (buf.remaining() < n) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + n));
+                buf.flip();
+                bigger.put(buf);
+                buf = bigger;
+            }
+            return buf;
+        }
+
+        // [length:unsigned short][UTF-8]; ids, ISINs and history labels are ASCII in practice
+        void putString(String s) {
+            int n = s.length();
+            boolean ascii = n <= 0xffff;
+            for (int i = 0; i < n && ascii; i++) ascii = s.charAt(i) < 0x80;
+            if (ascii) {
+                ensure(2 + n).putShort((short) n);
+                for (int i = 0; i < n; i++) buf.put((byte) s.charAt(i));
+                return;
+            }
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            if (b.length > 0xffff) throw new IllegalArgumentException("String too long for snapshot: " + b.length + " bytes");
+            ensure(2 + b.length).putShort((short) b.length).put(b);
+        }
+    }
+
+    //----------------------------------------------------------------------
+    // Restore
+    //----------------------------------------------------------------------
+
+    /** Loads the last snapshot if there is one. Nothing executes until {@link #resumeOpenTrades()}. */
+    public void restore() throws IOException {
+        if (!Files.exists(file)) return;
+        long start = System.currentTimeMillis();
+
+        List<long[]> sections = new ArrayList<>();   // {type, records, offset, length}
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(16);
+            readFully(ch, header, 0);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                System.err.println("Ignoring snapshot " + file + ": unknown format");
+                return;
+            }
+
+            // walk the section headers only; the bodies are mapped and decoded in parallel below
+            long pos = 16;
+            ByteBuffer sh = ByteBuffer.allocate(9);
+            while (pos < ch.size()) {
+                sh.clear();
+                readFully(ch, sh, pos);
+                long len = sh.getInt(5) & 0xffffffffL;
+                sections.add(new long[]{sh.get(0), sh.getInt(1), pos + 9, len});
+                pos += 9 + len;
+            }
+            if (pos != ch.size()) throw new IOException("Truncated snapshot " + file);
+
+            AtomicInteger trades = new AtomicInteger();
+            sections.parallelStream().forEach(s -> {
+                try {
+                    MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, s[2], s[3]);
+                    int n = decodeSection((byte) s[0], (int) s[1], buf);
+                    if (s[0] == SECTION_TRADES) trades.addAndGet(n);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            System.out.println("Restored " + trades.get() + " trades from " + file
+                    + " in " + (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+
+    /** Resubmits restored open trades; their executions and confirmations did not survive the restart. */
+    public void resumeOpenTrades() {
+        for (Trade t : tradeService.getAllTrades()) {
+            TradeState s = t.getState();
+            if (s != TradeState.CONFIRMED && s != TradeState.REJECTED && s != TradeState.CANCELLED) {
+                tradeService.submitForExecution(t);
+            }
+        }
+    }
+
+    private int decodeSection(byte type, int records, ByteBuffer buf) {
+        Decoder in = new Decoder(buf);
+        switch (type) {
+            case SECTION_TICKS:
+                for (int i = 0; i < records; i++) {
+                    market.restoreTick(new MarketTick(in.string(), buf.getLong(), buf.getLong()));
+                }
+                break;
+            case SECTION_EXPOSURES:
+                for (int i = 0; i < records; i++) {
+                    exposureService.restoreExposure(in.string(), buf.getLong());
+                }
+                break;
+            case SECTION_DEDUP:
+                Map<String, String> dedup = api.getDedupMap();
+                for (int i = 0; i < records; i++) {
+                    dedup.put(in.string(), in.string());
+                }
+                break;
+            case SECTION_TRADES:
+                for (int i = 0; i < records; i++) {
+                    tradeService.restoreTrade(decodeTrade(in, buf));
+                }
+                break;
+            default:
+                // written by a newer version; skip
+                return 0;
+        }
+        return records;
+    }
+
+    private static Trade decodeTrade(Decoder in, ByteBuffer buf) {
+        String id = in.string();
+        String isin = in.shared();
+        String trader = in.shared();
+        int quantity = buf.getInt();
+        long limitPrice = buf.getLong();
+        long executionPrice = buf.getLong();
+        int filled = buf.getInt();
+        int retryCount = buf.getInt();
+        long start = buf.getLong();
+        long end = buf.getLong();
+        TradeState state = STATES[buf.get()];
+        int n = buf.getShort() & 0xffff;
+        List<String> history = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) history.add(in.shared());
+
+        return Trade.restore(id, isin, trader, quantity, limitPrice, executionPrice,
+                filled, retryCount, start, end, state, history);
+    }
+
+    /** String reader for one section: reuses a scratch array and shares repeated values. */
+    private static class Decoder {
+        private final ByteBuffer buf;
+        private final Map<String, String> shared = new HashMap<>();
+        private byte[] scratch = new byte[64];
+
+        Decoder(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        String string() {
+            int len = buf.getShort() & 0xffff;
+            if (len > scratch.length) scratch = new byte[Math.max(len, scratch.length * 2)];
+            buf.get(scratch, 0, len);
+            return new String(scratch, 0, len, StandardCharsets.UTF_8);
+        }
+
+        // low-cardinality fields (ISIN, trader, history labels): one instance per section
+        String shared() {
+            String s = string();
+            String prev = shared.putIfAbsent(s, s);
+            return prev != null ? prev : s;
+        }
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer dst, long pos) throws IOException {
+        while (dst.hasRemaining()) {
+            int n = ch.read(dst, pos + dst.position());
+            if (n < 0) throw new EOFException("Truncated snapshot");
+        }
+    }
+}
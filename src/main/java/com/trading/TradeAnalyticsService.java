@@ -0,0 +1,368 @@
+package com.trading;
+
+import com.trading.model.AnalyticsReport;
+import com.trading.model.Price;
+import com.trading.model.Trade;
+import com.trading.model.TradeEvent;
+import com.trading.model.TradeState;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Trade analytics: per-ISIN VWAP and fill ratio, reject counts by reason, per-trader filled
+ * notional and the retry distribution of finished trades.
+ *
+ * Intraday figures come from running aggregates kept up to date by the TradeService state and
+ * fill listeners, so a query costs O(ISINs + traders), not O(trades). The end-of-day report is
+ * recomputed from the store on the common fork-join pool: trades are first projected into
+ * columns (dictionary-encoded ISIN/trader, quantities, price, state), then aggregated per range
+ * and merged.
+ *
+ * Intraday VWAP uses the actual fill prices; end-of-day uses each trade's last execution price.
+ */
+public class TradeAnalyticsService {
+
+    private static final int RETRY_BUCKETS = 16;
+    private static final String UNKNOWN_REASON = "UNKNOWN";
+    private static final int MIN_SPLIT = 8_192;
+
+    private final TradeService tradeService;
+    private final ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    private final LongAdder trades = new LongAdder();
+    private final ConcurrentHashMap<String, RunningIsin> isins = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> rejectReasons = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> traderNotional = new ConcurrentHashMap<>();
+    private final AtomicLongArray retries = new AtomicLongArray(RETRY_BUCKETS);
+
+    /**
+     * Seeds the running aggregates from the store, then starts listening. Create it while no
+     * trade is executing (after a snapshot restore, before open trades are resumed): a
+     * transition landing between the two steps would be either missed or counted twice.
+     */
+    public TradeAnalyticsService(TradeService tradeService) {
+        this.tradeService = tradeService;
+        // trades restored from a snapshot never went through the listeners
+        seed(endOfDay());
+        tradeService.addStateListener(this::onTransition);
+        tradeService.addFillListener(this::onFill);
+    }
+
+    //----------------------------------------------------------------------
+    // Intraday: running aggregates
+    //----------------------------------------------------------------------
+
+    public AnalyticsReport intraday() {
+        List<AnalyticsReport.IsinStats> stats = new ArrayList<>(isins.size());
+        for (Map.Entry<String, RunningIsin> e : isins.entrySet()) {
+            stats.add(e.getValue().toStats(e.getKey()));
+        }
+        stats.sort(Comparator.comparing(AnalyticsReport.IsinStats::getIsin));
+
+        long[] retryDistribution = new long[RETRY_BUCKETS];
+        for (int i = 0; i < RETRY_BUCKETS; i++) {
+            retryDistribution[i] = retries.get(i);
+        }
+        return new AnalyticsReport("intraday", trades.sum(), stats,
+                sums(rejectReasons), sums(traderNotional), retryDistribution);
+    }
+
+    // counts from the event, not from t: the trade may have moved on before listeners run
+    private void onTransition(Trade t, TradeEvent ev) {
+        switch (ev.getState()) {
+            case CREATED:
+                trades.increment();
+                RunningIsin s = isin(t.getIsin());
+                s.orders.increment();
+                s.orderedQty.add(t.getQuantity());
+                break;
+            case REJECTED:
+                isin(t.getIsin()).rejected.increment();
+                String reason = ev.getReason() == null ? UNKNOWN_REASON : ev.getReason();
+                rejectReasons.computeIfAbsent(reason, k -> new LongAdder()).increment();
+                retries.incrementAndGet(retryBucket(ev.getRetryCount()));
+                break;
+            case CANCELLED:
+                isin(t.getIsin()).cancelled.increment();
+                retries.incrementAndGet(retryBucket(ev.getRetryCount()));
+                break;
+            case CONFIRMED:
+                retries.incrementAndGet(retryBucket(ev.getRetryCount()));
+                break;
+            default:
+        }
+    }
+
+    private void onFill(Trade t, int qty, long price) {
+        long notional = Price.notional(qty, price);
+        RunningIsin s = isin(t.getIsin());
+        s.filledQty.add(qty);
+        s.notional.add(notional);
+        traderNotional.computeIfAbsent(t.getTrader(), k -> new LongAdder()).add(notional);
+    }
+
+    private void seed(AnalyticsReport r) {
+        trades.add(r.getTrades());
+        for (AnalyticsReport.IsinStats st : r.getIsins()) {
+            RunningIsin s = isin(st.getIsin());
+            s.orders.add(st.getOrders());
+            s.orderedQty.add(st.getOrderedQty());
+            s.filledQty.add(st.getFilledQty());
+            s.notional.add(st.getNotional());
+            s.rejected.add(st.getRejected());
+            s.cancelled.add(st.getCancelled());
+        }
+        r.getRejectReasons().forEach((k, v) -> rejectReasons.computeIfAbsent(k, x -> new LongAdder()).add(v));
+        r.getTraderNotional().forEach((k, v) -> traderNotional.computeIfAbsent(k, x -> new LongAdder()).add(v));
+        long[] dist = r.getRetryDistribution();
+        for (int i = 0; i < RETRY_BUCKETS; i++) {
+            retries.addAndGet(i, dist[i]);
+        }
+    }
+
+    private RunningIsin isin(String isin) {
+        return isins.computeIfAbsent(isin, k -> new RunningIsin());
+    }
+
+    private static Map<String, Long> sums(Map<String, LongAdder> adders) {
+        Map<String, Long> out = new TreeMap<>();
+        adders.forEach((k, v) -> out.put(k, v.sum()));
+        return out;
+    }
+
+    private static class RunningIsin {
+        final LongAdder orders = new LongAdder();
+        final LongAdder orderedQty = new LongAdder();
+        final LongAdder filledQty = new LongAdder();
+        final LongAdder notional = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder cancelled = new LongAdder();
+
+        AnalyticsReport.IsinStats toStats(String isin) {
+            return new AnalyticsReport.IsinStats(isin, orders.sum(), orderedQty.sum(), filledQty.sum(),
+                    notional.sum(), rejected.sum(), cancelled.sum());
+        }
+    }
+
+    //----------------------------------------------------------------------
+    // End of day: full fork-join recomputation
+    //----------------------------------------------------------------------
+
+    public AnalyticsReport endOfDay() {
+        Trade[] all = tradeService.getAllTrades().toArray(new Trade[0]);
+        int n = all.length;
+        int split = Math.max(MIN_SPLIT, n / (pool.getParallelism() * 4));
+
+        Columns c = new Columns(n);
+        pool.invoke(new Project(all, c, 0, n, split));
+        String[] isinNames = c.isins.names();
+        String[] traderNames = c.traders.names();
+        String[] reasonNames = c.reasons.names();
+        Partial p = pool.invoke(new Aggregate(c, 0, n, split,
+                isinNames.length, traderNames.length, reasonNames.length));
+
+        List<AnalyticsReport.IsinStats> stats = new ArrayList<>(isinNames.length);
+        for (int i = 0; i < isinNames.length; i++) {
+            int k = i * Partial.ISIN_FIELDS;
+            stats.add(new AnalyticsReport.IsinStats(isinNames[i], p.isin[k], p.isin[k + 1], p.isin[k + 2],
+                    p.isin[k + 3], p.isin[k + 4], p.isin[k + 5]));
+        }
+        stats.sort(Comparator.comparing(AnalyticsReport.IsinStats::getIsin));
+
+        Map<String, Long> reasons = new TreeMap<>();
+        for (int i = 0; i < reasonNames.length; i++) reasons.put(reasonNames[i], p.reason[i]);
+        Map<String, Long> notional = new TreeMap<>();
+        // intraday only knows traders with fills
+        for (int i = 0; i < traderNames.length; i++) {
+            if (p.trader[i] != 0) notional.put(traderNames[i], p.trader[i]);
+        }
+
+        return new AnalyticsReport("eod", n, stats, reasons, notional, p.retry);
+    }
+
+    /** Reason recorded after the last REJECTED entry of a trade's history. */
+    static String rejectReason(Trade t) {
+        List<String> history = t.getHistory();
+        for (int i = history.size() - 2; i >= 0; i--) {
+            if (history.get(i).equals("REJECTED")) return history.get(i + 1);
+        }
+        return UNKNOWN_REASON;
+    }
+
+    private static int retryBucket(int retryCount) {
+        return Math.min(retryCount, RETRY_BUCKETS - 1);
+    }
+
+    /** Thread-safe string to dense id mapping. */
+    private static class Dictionary {
+        private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+        private final AtomicInteger next = new AtomicInteger();
+
+        int id(String s) {
+            Integer id = ids.get(s);
+            return id != null ? id : ids.computeIfAbsent(s, k -> next.getAndIncrement());
+        }
+
+        String[] names() {
+            String[] out = new String[next.get()];
+            ids.forEach((k, v) -> out[v] = k);
+            return out;
+        }
+    }
+
+    /** Column-per-field projection of the trade store. */
+    private static class Columns {
+        final Dictionary isins = new Dictionary();
+        final Dictionary traders = new Dictionary();
+        final Dictionary reasons = new Dictionary();
+
+        final int[] isin;
+        final int[] trader;
+        final int[] quantity;
+        final int[] filled;
+        final long[] price;
+        final byte[] state;
+        final byte[] retryBucket;
+        final int[] reason;     // -1 unless rejected; reason texts are not a closed set
+
+        Columns(int n) {
+            isin = new int[n];
+            trader = new int[n];
+            quantity = new int[n];
+            filled = new int[n];
+            price = new long[n];
+            state = new byte[n];
+            retryBucket = new byte[n];
+            reason = new int[n];
+        }
+    }
+
+    private static class Project extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Trade[] trades;
+        private final Columns c;
+        private final int from, to, split;
+
+        Project(Trade[] trades, Columns c, int from, int to, int split) {
+            this.trades = trades;
+            this.c = c;
+            this.from = from;
+            this.to = to;
+            this.split = split;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > split) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Project(trades, c, from, mid, split), new Project(trades, c, mid, to, split));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                Trade t = trades[i];
+                TradeState s = t.getState();
+                c.isin[i] = c.isins.id(t.getIsin());
+                c.trader[i] = c.traders.id(t.getTrader());
+                c.quantity[i] = t.getQuantity();
+                c.filled[i] = t.getFilled();
+                c.price[i] = t.getExecutionPrice();
+                c.state[i] = (byte) s.ordinal();
+                c.retryBucket[i] = (byte) retryBucket(t.getRetryCount());
+                c.reason[i] = s == TradeState.REJECTED ? c.reasons.id(rejectReason(t)) : -1;
+            }
+        }
+    }
+
+    /** Per-range sums, indexed by dictionary id. */
+    private static class Partial {
+        // orders, orderedQty, filledQty, notional, rejected, cancelled
+        static final int ISIN_FIELDS = 6;
+
+        final long[] isin;
+        final long[] trader;
+        final long[] reason;
+        final long[] retry = new long[RETRY_BUCKETS];
+
+        Partial(int isins, int traders, int reasons) {
+            isin = new long[isins * ISIN_FIELDS];
+            trader = new long[traders];
+            reason = new long[reasons];
+        }
+
+        Partial merge(Partial o) {
+            add(isin, o.isin);
+            add(trader, o.trader);
+            add(reason, o.reason);
+            add(retry, o.retry);
+            return this;
+        }
+
+        private static void add(long[] into, long[] from) {
+            for (int i = 0; i < into.length; i++) into[i] += from[i];
+        }
+    }
+
+    private static class Aggregate extends RecursiveTask<Partial> {
+        private static final long serialVersionUID = 1L;
+
+        private static final byte REJECTED = (byte) TradeState.REJECTED.ordinal();
+        private static final byte CANCELLED = (byte) TradeState.CANCELLED.ordinal();
+        private static final byte CONFIRMED = (byte) TradeState.CONFIRMED.ordinal();
+
+        private final Columns c;
+        private final int from, to, split;
+        private final int isins, traders, reasons;
+
+        Aggregate(Columns c, int from, int to, int split, int isins, int traders, int reasons) {
+            this.c = c;
+            this.from = from;
+            this.to = to;
+            this.split = split;
+            this.isins = isins;
+            this.traders = traders;
+            this.reasons = reasons;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from > split) {
+                int mid = (from + to) >>> 1;
+                Aggregate left = new Aggregate(c, from, mid, split, isins, traders, reasons);
+                left.fork();
+                Partial right = new Aggregate(c, mid, to, split, isins, traders, reasons).compute();
+                return left.join().merge(right);
+            }
+
+            Partial p = new Partial(isins, traders, reasons);
+            for (int i = from; i < to; i++) {
+                int k = c.isin[i] * Partial.ISIN_FIELDS;
+                long notional = Price.notional(c.filled[i], c.price[i]);
+                p.isin[k]++;
+                p.isin[k + 1] += c.quantity[i];
+                p.isin[k + 2] += c.filled[i];
+                p.isin[k + 3] += notional;
+                p.trader[c.trader[i]] += notional;
+
+                byte s = c.state[i];
+                if (s == REJECTED) {
+                    p.isin[k + 4]++;
+                    p.reason[c.reason[i]]++;
+                } else if (s == CANCELLED) {
+                    p.isin[k + 5]++;
+                }
+                if (s == REJECTED || s == CANCELLED || s == CONFIRMED) {
+                    p.retry[c.retryBucket[i]]++;
+                }
+            }
+            return p;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.trading;
+
+import com.google.gson.Gson;
+import com.trading.json.JsonCodecs;
+import com.trading.json.JsonWriter;
+import com.trading.model.Trade;
+import com.trading.model.TradeState;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Node-local trade operations behind the HTTP endpoints.
+ * Called directly by MainServer for traders this node owns, and by ClusterService
+ * when another node forwards a request here.
+ */
+public class TradeApi {
+
+    /** Status code + UTF-8 JSON body, the same shape the HTTP handlers send back. */
+    public static class Reply {
+        private final int status;
+        private final byte[] body;
+
+        public Reply(int status, byte[] body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        public Reply(int status, String json) {
+            this(status, json.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static Reply ok(JsonWriter w) {
+            return new Reply(200, w.toByteArray());
+        }
+
+        public int getStatus() { return status; }
+        public byte[] getBody() { return body; }
+    }
+
+    private final InstrumentService instrumentService;
+    private final CreditExposureService exposureService;
+    private final TradeService tradeService;
+    private final FixMockService fixService;
+    private final String tradeIdPrefix;
+    private final Gson gson = new Gson();
+
+    // Dedup map for duplicate trade prevention
+    private final ConcurrentHashMap<String, String> dedupMap = new ConcurrentHashMap<>();
+
+    public TradeApi(InstrumentService instrumentService,
+                    CreditExposureService exposureService,
+                    TradeService tradeService,
+                    FixMockService fixService,
+                    String tradeIdPrefix) {
+        this.instrumentService = instrumentService;
+        this.exposureService = exposureService;
+        this.tradeService = tradeService;
+        this.fixService = fixService;
+        this.tradeIdPrefix = tradeIdPrefix;
+    }
+
+    // live view, used by snapshots
+    public Map<String, String> getDedupMap() {
+        return dedupMap;
+    }
+
+    public Reply create(String isin, String trader, int qty, long limit) {
+        // Duplicate check
+        String payloadHash = Integer.toString(Objects.hash(isin, trader, qty, limit));
+        if (dedupMap.containsKey(payloadHash)) {
+            String existing = dedupMap.get(payloadHash);
+            JsonWriter w = JsonWriter.local();
+            JsonCodecs.writeOrderAck(w, existing, "DUPLICATE", null);
+            return Reply.ok(w);
+        }
+
+        // Validate ISIN
+        var instrument = instrumentService.fetchByIsin(isin);
+        if (instrument.isEmpty()) {
+            return new Reply(400, gson.toJson(Map.of("error", "Invalid ISIN")));
+        }
+        if (trader == null) {
+            return new Reply(400, gson.toJson(Map.of("error", "trader required")));
+        }
+        String tradeId = newTradeId();
+
+        // Exposure check BEFORE trade creation
+        boolean allowed = exposureService.isAllowed(trader, qty, limit);
+
+        if (!allowed) {
+            Trade rejected = tradeService.createTrade(tradeId, isin, trader, qty, limit);
+            tradeService.reject(rejected, "EXPOSURE_BREACH");
+
+            JsonWriter w = JsonWriter.local();
+            JsonCodecs.writeOrderAck(w, tradeId, "REJECTED", "Exposure breach");
+            return Reply.ok(w);
+        }
+
+        // Create Trade
+        tradeId = newTradeId();
+        Trade t = tradeService.createTrade(tradeId, isin, trader, qty, limit);
+
+        // Dedup store
+        dedupMap.put(payloadHash, tradeId);
+
+        // Execute async (mock)
+        tradeService.submitForExecution(t);
+
+        JsonWriter w = JsonWriter.local();
+        JsonCodecs.writeOrderAck(w, tradeId, t.getState().name(), null);
+        return Reply.ok(w);
+    }
+
+    public Reply exposure(String trader) {
+        JsonWriter w = JsonWriter.local();
+        JsonCodecs.writeExposure(w, trader,
+                exposureService.getExposure(trader),
+                exposureService.getLimit(trader),
+                exposureService.isAllowed(trader, 0, 0));
+        return Reply.ok(w);
+    }
+
+    public Reply get(String id) {
+        var opt = tradeService.find(id);
+        if (opt.isEmpty()) return new Reply(200, gson.toJson(Map.of("error", "not found")));
+
+        JsonWriter w = JsonWriter.local();
+        JsonCodecs.writeTrade(w, opt.get());
+        return Reply.ok(w);
+    }
+
+    public Reply allTrades() {
+        Collection<Trade> all = tradeService.getAllTrades();
+        JsonWriter w = JsonWriter.local();
+        JsonCodecs.writeTrades(w, all);
+        return Reply.ok(w);
+    }
+
+    public Reply cancel(String id) {
+        boolean ok = tradeService.cancel(id);
+        JsonWriter w = JsonWriter.local();
+        JsonCodecs.writeCancelAck(w, ok);
+        return Reply.ok(w);
+    }
+
+    public Reply cancelBulk(String trader, String isin, TradeState state) {
+        int cancelled = tradeService.cancelAll(trader, isin, state);
+        JsonWriter w = JsonWriter.local();
+        JsonCodecs.writeBulkCancelAck(w, cancelled);
+        return Reply.ok(w);
+    }
+
+    public Reply execution(String tradeId) {
+        String fix = fixService.getExecutionReport(tradeId);
+        if (fix == null)
+            return new Reply(404, gson.toJson(Map.of("error", "no fix")));
+        return new Reply(200, fix);
+    }
+
+    // in cluster mode ids carry the owning node so get/cancel can be routed without a lookup
+    private String newTradeId() {
+        return tradeIdPrefix + UUID.randomUUID();
+    }
+}
@@ -1,12 +1,15 @@
 package com.trading;
 
 import com.trading.model.MarketTick;
+import com.trading.model.Price;
 import com.trading.model.Trade;
+import com.trading.model.TradeEvent;
 import com.trading.model.TradeState;
 
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class TradeService {
 
@@ -16,12 +19,39 @@ public class TradeService {
     private final FixMockService fixService;
 
     private final ConcurrentHashMap<String, Trade> store = new ConcurrentHashMap<>();
+
+    // open (not yet CONFIRMED / REJECTED / CANCELLED) trades, so mass cancels never scan the store
+    private final Set<Trade> open = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, Set<Trade>> openByTrader = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<Trade>> openByIsin = new ConcurrentHashMap<>();
+    // the retry or confirmation timer each trade is waiting on, if any
+    private final ConcurrentHashMap<String, ScheduledFuture<?>> timers = new ConcurrentHashMap<>();
     private final ExecutorService exec = Executors.newCachedThreadPool();
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
     private final Random rnd = new Random();
 
-    // tolerance for price deviation (10% default)
-    private final double marketTolerance = 0.10;
+    // notified on every lifecycle transition (e.g. the dashboard trade feed)
+    private final List<StateListener> stateListeners = new CopyOnWriteArrayList<>();
+    // notified on every fill, with the filled quantity and price (e.g. analytics)
+    private final List<FillListener> fillListeners = new CopyOnWriteArrayList<>();
+
+    // seq of the last TradeEvent; taken under the trade's lock, so per trade it follows the state order
+    private final AtomicLong eventSeq = new AtomicLong();
+
+    /**
+     * Listeners run after the trade's lock is released, so the trade may already have moved
+     * on; the event holds the state as of this transition and is what should be counted.
+     */
+    public interface StateListener {
+        void onTransition(Trade t, TradeEvent ev);
+    }
+
+    public interface FillListener {
+        void onFill(Trade t, int qty, long price);
+    }
+
+    // tolerance for price deviation in basis points (10% default)
+    private final long marketToleranceBps = 1_000;
 
     public TradeService(MarketDataService market,
                         InstrumentService instrumentService,
@@ -34,16 +64,36 @@ public class TradeService {
         this.fixService = fixService;
     }
 
-    public Trade createTrade(String tradeId, String isin, String trader, int qty, double limitPrice) {
+    public Trade createTrade(String tradeId, String isin, String trader, int qty, long limitPrice) {
         Trade t = new Trade(tradeId, isin, trader, qty, limitPrice);
+        // captured before the trade is reachable, so a racing cancel always comes after CREATED
+        TradeEvent created;
+        synchronized (t) {
+            created = event(t, null);
+        }
         store.put(tradeId, t);
+        index(t);
+        publish(t, created);
         return t;
     }
 
+    public void addStateListener(StateListener listener) {
+        stateListeners.add(listener);
+    }
+
+    public void addFillListener(FillListener listener) {
+        fillListeners.add(listener);
+    }
+
     public Optional<Trade> find(String id) {
         return Optional.ofNullable(store.get(id));
     }
 
+    /** Seq of the most recent TradeEvent; events published later have a higher one. */
+    public long lastEventSeq() {
+        return eventSeq.get();
+    }
+
     public Collection<Trade> getAllTrades() {
         return new ArrayList<>(store.values());
     }
@@ -51,16 +101,47 @@ public class TradeService {
     public boolean cancel(String id) {
         Trade t = store.get(id);
         if (t == null) return false;
+        return markCancelled(t, null);
+    }
 
+    /**
+     * Cancels every open trade matching all given filters (null = any) and returns how many
+     * were cancelled. Candidates come from the open-trade indexes, narrowest first.
+     * At least one filter is required; cancelling everything is never a default.
+     */
+    public int cancelAll(String trader, String isin, TradeState state) {
+        if (trader == null && isin == null && state == null)
+            throw new IllegalArgumentException("trader, isin or state required");
+        Collection<Trade> candidates = trader != null ? openByTrader.getOrDefault(trader, Set.of())
+                : isin != null ? openByIsin.getOrDefault(isin, Set.of())
+                : open;
+
+        int cancelled = 0;
+        for (Trade t : candidates.toArray(new Trade[0])) {
+            if (isin != null && !isin.equals(t.getIsin())) continue;
+            if (markCancelled(t, state)) cancelled++;
+        }
+        return cancelled;
+    }
+
+    // cancellation wins over any execution still in flight: later transitions see CANCELLED and stop
+    private boolean markCancelled(Trade t, TradeState onlyIn) {
+        TradeEvent ev;
         synchronized (t) {
-            if (t.getState() == TradeState.CONFIRMED || t.getState() == TradeState.REJECTED)
+            // already cancelled counts as not cancelled now, so bulk counts and acks stay exact
+            if (isTerminal(t.getState()))
+                return false;
+            if (onlyIn != null && t.getState() != onlyIn)
                 return false;
-
             t.setState(TradeState.CANCELLED);
             t.addHistory("CANCELLED");
-            store.put(t.getId(), t);
-            return true;
+            ev = event(t, null);
         }
+        ScheduledFuture<?> timer = timers.remove(t.getId());
+        if (timer != null) timer.cancel(false);
+        unindex(t);
+        publish(t, ev);
+        return true;
     }
 
     public void executeAsync(Trade t) {
@@ -82,19 +163,17 @@ public class TradeService {
 
         while (attempts < maxAttempts) {
             attempts++;
-            t.incrementRetry();
-            t.setExecutionStartTime(System.currentTimeMillis());
+            synchronized (t) {
+                // a cancelled trade keeps the retry count its CANCELLED event was published with
+                if (t.getState() == TradeState.CANCELLED) return;
+                t.incrementRetry();
+                t.setExecutionStartTime(System.currentTimeMillis());
+            }
 
             try {
-                if (t.getState() == TradeState.CANCELLED) {
-                    store.put(t.getId(), t);
-                    return;
-                }
-
                 // 12% chance of random failure
                 if (rnd.nextDouble() < 0.12) {
-                    t.setState(TradeState.RETRY);
-                    t.addHistory("TRANSIENT_FAILURE");
+                    if (!transition(t, TradeState.RETRY, "TRANSIENT_FAILURE")) return;
                     store.put(t.getId(), t);
                     Thread.sleep(100 + rnd.nextInt(300));
                     throw new RuntimeException("Simulated transient failure");
@@ -102,21 +181,20 @@ public class TradeService {
 
                 // Market price fetch
                 MarketTick mt = market.getLatest(t.getIsin());
-                double marketPx = (mt != null) ? mt.getPrice() : 0.0;
+                long marketPx = (mt != null) ? mt.getPrice() : 0;
 
                 // Execution price decision
-                double execPx = t.getLimitPrice() > 0 ? t.getLimitPrice() : marketPx;
+                long execPx = t.getLimitPrice() > 0 ? t.getLimitPrice() : marketPx;
                 t.setExecutionPrice(execPx);
 
                 // Market average for deviation check
-                double avg = market.getAveragePrice(t.getIsin(), 5);
+                long avg = market.getAveragePrice(t.getIsin(), 5);
                 if (avg > 0) {
-                    double diff = Math.abs(execPx - avg) / avg;
-                    if (diff > marketTolerance) {
-                        t.setState(TradeState.REJECTED);
-                        t.addHistory("REJECTED_PRICE_DEVIATION");
+                    // |execPx - avg| / avg > tolerance, kept in integers
+                    if (Price.deviatesBeyond(execPx, avg, marketToleranceBps)) {
+                        if (!transition(t, TradeState.REJECTED, "REJECTED_PRICE_DEVIATION")) return;
                         t.setExecutionEndTime(System.currentTimeMillis());
-                        fixService.createExecutionReport(t.getId(), execPx, 0);
+                        report(t, execPx, 0);
                         store.put(t.getId(), t);
                         return;
                     }
@@ -125,7 +203,7 @@ public class TradeService {
                 // Remaining qty
                 int remaining = t.getQuantity() - t.getFilled();
                 if (remaining <= 0) {
-                    t.setState(TradeState.CONFIRMED);
+                    if (!transition(t, TradeState.CONFIRMED)) return;
                     t.setExecutionEndTime(System.currentTimeMillis());
                     store.put(t.getId(), t);
                     return;
@@ -134,51 +212,42 @@ public class TradeService {
                 // 🔥 GUARANTEED PARTIAL FILL MODE
                 boolean forcePartial =
                         t.getTrader().equalsIgnoreCase("TEST_PARTIAL")
-                                || t.getLimitPrice() == -1;
+                                || t.getLimitPrice() == -Price.SCALE;
 
                 if (forcePartial || rnd.nextDouble() < 0.25) {
                     // Guaranteed or random partial fill
                     int fillQty = Math.max(1, remaining / 2);
-                    t.addFilled(fillQty);
-                    t.setState(TradeState.PARTIAL);
-                    t.addHistory("PARTIAL_FILL:" + fillQty);
+                    if (!fill(t, TradeState.PARTIAL, "PARTIAL_FILL:" + fillQty, fillQty)) return;
 
-                    fixService.createExecutionReport(t.getId(), execPx, fillQty);
+                    report(t, execPx, fillQty);
                     store.put(t.getId(), t);
 
-                    scheduler.schedule(() -> internalExecuteWithRetry(t),
-                            300 + rnd.nextInt(400),
-                            TimeUnit.MILLISECONDS);
+                    schedule(t, () -> internalExecuteWithRetry(t), 300 + rnd.nextInt(400));
 
                 } else {
                     // FULL FILL
                     int fillQty = remaining;
-                    t.addFilled(fillQty);
-                    t.setState(TradeState.EXECUTED);
-                    t.addHistory("EXECUTED:" + fillQty);
+                    if (!fill(t, TradeState.EXECUTED, "EXECUTED:" + fillQty, fillQty)) return;
 
-                    fixService.createExecutionReport(t.getId(), execPx, fillQty);
+                    report(t, execPx, fillQty);
                     store.put(t.getId(), t);
 
                     // Confirmation after delay
-                    scheduler.schedule(() -> {
+                    schedule(t, () -> {
                         if (t.getState() == TradeState.CANCELLED) {
                             store.put(t.getId(), t);
                             return;
                         }
 
-                        if (rnd.nextDouble() < 0.08) {
-                            t.setState(TradeState.REJECTED);
-                            t.addHistory("CONFIRMATION_FAILED");
-                        } else {
-                            t.setState(TradeState.CONFIRMED);
-                            t.addHistory("CONFIRMED");
-                        }
+                        boolean confirmed = rnd.nextDouble() < 0.08
+                                ? transition(t, TradeState.REJECTED, "CONFIRMATION_FAILED")
+                                : transition(t, TradeState.CONFIRMED, "CONFIRMED");
+                        if (!confirmed) return;
 
                         t.setExecutionEndTime(System.currentTimeMillis());
                         store.put(t.getId(), t);
 
-                    }, 200 + rnd.nextInt(400), TimeUnit.MILLISECONDS);
+                    }, 200 + rnd.nextInt(400));
                 }
 
                 t.setExecutionEndTime(System.currentTimeMillis());
@@ -193,14 +262,118 @@ public class TradeService {
         }
 
         // All retries exhausted
-        t.setState(TradeState.REJECTED);
-        t.addHistory("REJECTED_AFTER_RETRIES");
+        if (!transition(t, TradeState.REJECTED, "REJECTED_AFTER_RETRIES")) return;
         t.setExecutionEndTime(System.currentTimeMillis());
         store.put(t.getId(), t);
     }
 
-    public void storeTrade(Trade t) {
+    // snapshot restore: no listeners, no execution
+    public void restoreTrade(Trade t) {
         store.put(t.getId(), t);
+        index(t);
+    }
+
+    /** Rejects a trade before execution, e.g. on an exposure breach. */
+    public void reject(Trade t, String reason) {
+        transition(t, TradeState.REJECTED, reason);
+    }
+
+    // false when the trade was cancelled meanwhile; the caller then stops working on it
+    private boolean transition(Trade t, TradeState state) {
+        TradeEvent ev;
+        synchronized (t) {
+            if (t.getState() == TradeState.CANCELLED) return false;
+            t.setState(state);
+            ev = event(t, null);
+        }
+        if (isTerminal(state)) unindex(t);
+        publish(t, ev);
+        return true;
+    }
+
+    // the reason goes into the history and into the event listeners get
+    private boolean transition(Trade t, TradeState state, String reason) {
+        TradeEvent ev;
+        synchronized (t) {
+            if (t.getState() == TradeState.CANCELLED) return false;
+            t.setState(state);
+            t.addHistory(reason);
+            ev = event(t, reason);
+        }
+        if (isTerminal(state)) unindex(t);
+        publish(t, ev);
+        return true;
+    }
+
+    private boolean fill(Trade t, TradeState state, String reason, int qty) {
+        TradeEvent ev;
+        synchronized (t) {
+            if (t.getState() == TradeState.CANCELLED) return false;
+            t.addFilled(qty);
+            t.setState(state);
+            t.addHistory(reason);
+            ev = event(t, reason);
+        }
+        publish(t, ev);
+        return true;
+    }
+
+    // caller holds the trade's lock
+    private TradeEvent event(Trade t, String reason) {
+        return TradeEvent.of(eventSeq.incrementAndGet(), t, reason);
+    }
+
+    private void schedule(Trade t, Runnable task, long delayMs) {
+        timers.put(t.getId(), scheduler.schedule(() -> {
+            timers.remove(t.getId());
+            task.run();
+        }, delayMs, TimeUnit.MILLISECONDS));
+    }
+
+    private static boolean isTerminal(TradeState state) {
+        return state == TradeState.CONFIRMED || state == TradeState.REJECTED || state == TradeState.CANCELLED;
+    }
+
+    private void index(Trade t) {
+        if (isTerminal(t.getState())) return;
+        open.add(t);
+        // add inside compute() so a concurrent unindex() cannot drop the set under us
+        openByTrader.compute(t.getTrader(), (k, set) -> add(set, t));
+        openByIsin.compute(t.getIsin(), (k, set) -> add(set, t));
+    }
+
+    private static Set<Trade> add(Set<Trade> set, Trade t) {
+        if (set == null) set = ConcurrentHashMap.newKeySet();
+        set.add(t);
+        return set;
+    }
+
+    private void unindex(Trade t) {
+        if (!open.remove(t)) return;
+        openByTrader.computeIfPresent(t.getTrader(), (k, set) -> set.remove(t) && set.isEmpty() ? null : set);
+        openByIsin.computeIfPresent(t.getIsin(), (k, set) -> set.remove(t) && set.isEmpty() ? null : set);
+    }
+
+    private void report(Trade t, long price, int qty) {
+        fixService.createExecutionReport(t.getId(), price, qty);
+        if (qty <= 0) return;
+        for (FillListener l : fillListeners) {
+            try {
+                l.onFill(t, qty, price);
+            } catch (Exception e) {
+                System.err.println("Fill listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void publish(Trade t, TradeEvent ev) {
+        for (StateListener l : stateListeners) {
+            try {
+                l.onTransition(t, ev);
+            } catch (Exception e) {
+                System.err.println("Trade listener failed: " + e.getMessage());
+            }
+        }
     }
 
 
@@ -0,0 +1,303 @@
+package com.trading.json;
+
+import com.trading.model.*;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-specialized JSON codecs for the model and request shapes.
+ * Output field names and order match what Gson produced for these classes, so clients
+ * see the same documents; no reflection and no intermediate Map/String trees.
+ */
+public final class JsonCodecs {
+
+    private static final byte[][] ORDER_FIELDS = JsonReader.names("isin", "trader", "quantity", "limitPrice");
+    private static final byte[][] CANCEL_FIELDS = JsonReader.names("id");
+    private static final byte[][] BULK_CANCEL_FIELDS = JsonReader.names("trader", "isin", "state");
+    private static final byte[][] CANCEL_ACK_FIELDS = JsonReader.names("cancelled");
+
+    private static final byte[] ID = JsonWriter.key("id");
+    private static final byte[] ISIN = JsonWriter.key("isin");
+    private static final byte[] TRADER = JsonWriter.key("trader");
+    private static final byte[] QUANTITY = JsonWriter.key("quantity");
+    private static final byte[] LIMIT_PRICE = JsonWriter.key("limitPrice");
+    private static final byte[] EXECUTION_PRICE = JsonWriter.key("executionPrice");
+    private static final byte[] FILLED = JsonWriter.key("filled");
+    private static final byte[] RETRY_COUNT = JsonWriter.key("retryCount");
+    private static final byte[] EXECUTION_START = JsonWriter.key("executionStartTime");
+    private static final byte[] EXECUTION_END = JsonWriter.key("executionEndTime");
+    private static final byte[] STATE = JsonWriter.key("state");
+    private static final byte[] HISTORY = JsonWriter.key("history");
+    private static final byte[] PRICE = JsonWriter.key("price");
+    private static final byte[] TIMESTAMP = JsonWriter.key("timestamp");
+    private static final byte[] SEQ = JsonWriter.key("seq");
+    private static final byte[] TRADE_ID = JsonWriter.key("tradeId");
+    private static final byte[] REASON = JsonWriter.key("reason");
+    private static final byte[] CANCELLED = JsonWriter.key("cancelled");
+    private static final byte[] AVERAGE = JsonWriter.key("average");
+    private static final byte[] CURRENT_EXPOSURE = JsonWriter.key("currentExposure");
+    private static final byte[] LIMIT = JsonWriter.key("limit");
+    private static final byte[] ALLOWED = JsonWriter.key("allowed");
+    private static final byte[] FILLED_QTY = JsonWriter.key("filledQty");
+    private static final byte[] MODE = JsonWriter.key("mode");
+    private static final byte[] TRADES = JsonWriter.key("trades");
+    private static final byte[] ISINS = JsonWriter.key("isins");
+    private static final byte[] ORDERS = JsonWriter.key("orders");
+    private static final byte[] ORDERED_QTY = JsonWriter.key("orderedQty");
+    private static final byte[] FILL_RATIO = JsonWriter.key("fillRatio");
+    private static final byte[] VWAP = JsonWriter.key("vwap");
+    private static final byte[] NOTIONAL = JsonWriter.key("notional");
+    private static final byte[] REJECTED = JsonWriter.key("rejected");
+    private static final byte[] REJECT_REASONS = JsonWriter.key("rejectReasons");
+    private static final byte[] COUNT = JsonWriter.key("count");
+    private static final byte[] RATE = JsonWriter.key("rate");
+    private static final byte[] TRADER_NOTIONAL = JsonWriter.key("traderNotional");
+    private static final byte[] RETRY_DISTRIBUTION = JsonWriter.key("retryDistribution");
+
+    private JsonCodecs() {}
+
+    //----------------------------------------------------------------------
+    // Requests
+    //----------------------------------------------------------------------
+
+    /**
+     * quantity and limitPrice are required (IllegalArgumentException when missing): defaulting
+     * them to 0 would turn the order into a market order or an empty one. isin and trader are
+     * left null for TradeApi to reject.
+     */
+    public static OrderRequest readOrder(JsonReader r) {
+        String isin = null;
+        String trader = null;
+        int quantity = 0;
+        long limitPrice = 0;
+        boolean hasQuantity = false;
+        boolean hasLimitPrice = false;
+
+        r.beginObject();
+        while (r.hasNext()) {
+            switch (r.nextName(ORDER_FIELDS)) {
+                case 0: isin = r.nextString(); break;
+                case 1: trader = r.nextString(); break;
+                case 2: quantity = r.nextInt(); hasQuantity = true; break;
+                case 3: limitPrice = r.nextDecimal(Price.DECIMALS); hasLimitPrice = true; break;
+                default: r.skipValue();
+            }
+        }
+        r.endObject();
+        if (!hasQuantity) throw new IllegalArgumentException("quantity required");
+        if (!hasLimitPrice) throw new IllegalArgumentException("limitPrice required");
+        return new OrderRequest(isin, trader, quantity, limitPrice);
+    }
+
+    public static CancelRequest readCancel(JsonReader r) {
+        String id = null;
+
+        r.beginObject();
+        while (r.hasNext()) {
+            if (r.nextName(CANCEL_FIELDS) == 0) {
+                id = r.nextString();
+            } else {
+                r.skipValue();
+            }
+        }
+        r.endObject();
+        return new CancelRequest(id);
+    }
+
+    /** Unknown states are rejected with IllegalArgumentException, like malformed JSON. */
+    public static BulkCancelRequest readBulkCancel(JsonReader r) {
+        String trader = null;
+        String isin = null;
+        TradeState state = null;
+
+        r.beginObject();
+        while (r.hasNext()) {
+            switch (r.nextName(BULK_CANCEL_FIELDS)) {
+                case 0: trader = r.nextString(); break;
+                case 1: isin = r.nextString(); break;
+                case 2:
+                    String s = r.nextString();
+                    state = s == null ? null : TradeState.valueOf(s);
+                    break;
+                default: r.skipValue();
+            }
+        }
+        r.endObject();
+        return new BulkCancelRequest(trader, isin, state);
+    }
+
+    /** Count from a {@link #writeBulkCancelAck} document, e.g. a peer's reply. */
+    public static int readBulkCancelAck(JsonReader r) {
+        int cancelled = 0;
+
+        r.beginObject();
+        while (r.hasNext()) {
+            if (r.nextName(CANCEL_ACK_FIELDS) == 0) {
+                cancelled = r.nextInt();
+            } else {
+                r.skipValue();
+            }
+        }
+        r.endObject();
+        return cancelled;
+    }
+
+    //----------------------------------------------------------------------
+    // Model
+    //----------------------------------------------------------------------
+
+    public static void writeTrade(JsonWriter w, Trade t) {
+        w.beginObject()
+                .name(ID).value(t.getId())
+                .name(ISIN).value(t.getIsin())
+                .name(TRADER).value(t.getTrader())
+                .name(QUANTITY).value(t.getQuantity())
+                .name(LIMIT_PRICE).decimal(t.getLimitPrice(), Price.DECIMALS)
+                .name(EXECUTION_PRICE).decimal(t.getExecutionPrice(), Price.DECIMALS)
+                .name(FILLED).value(t.getFilled())
+                .name(RETRY_COUNT).value(t.getRetryCount())
+                .name(EXECUTION_START).value(t.getExecutionStartTime())
+                .name(EXECUTION_END).value(t.getExecutionEndTime())
+                .name(STATE).value(t.getState().name())
+                .name(HISTORY).beginArray();
+        // history only ever grows, so indexing up to a snapshot of the size is safe
+        List<String> history = t.getHistory();
+        for (int i = 0, n = history.size(); i < n; i++) {
+            w.value(history.get(i));
+        }
+        w.endArray().endObject();
+    }
+
+    public static void writeTrades(JsonWriter w, Collection<Trade> trades) {
+        w.beginArray();
+        for (Trade t : trades) {
+            writeTrade(w, t);
+        }
+        w.endArray();
+    }
+
+    public static void writeTick(JsonWriter w, MarketTick tick) {
+        w.beginObject()
+                .name(ISIN).value(tick.getIsin())
+                .name(PRICE).decimal(tick.getPrice(), Price.DECIMALS)
+                .name(TIMESTAMP).value(tick.getTimestamp())
+                .endObject();
+    }
+
+    public static void writeTicks(JsonWriter w, Collection<MarketTick> ticks) {
+        w.beginArray();
+        for (MarketTick tick : ticks) {
+            writeTick(w, tick);
+        }
+        w.endArray();
+    }
+
+    public static void writeTradeEvent(JsonWriter w, TradeEvent ev) {
+        w.beginObject()
+                .name(SEQ).value(ev.getSeq())
+                .name(TRADE_ID).value(ev.getTradeId())
+                .name(STATE).value(ev.getState().name())
+                .name(FILLED).value(ev.getFilled())
+                .name(PRICE).decimal(ev.getPrice(), Price.DECIMALS)
+                .endObject();
+    }
+
+    public static void writeTradeEvents(JsonWriter w, Collection<TradeEvent> events) {
+        w.beginArray();
+        for (TradeEvent ev : events) {
+            writeTradeEvent(w, ev);
+        }
+        w.endArray();
+    }
+
+    /** One drop-copy execution report, as read from the execution journal. */
+    public static void writeExecution(JsonWriter w, long seq, String tradeId, long price, int filledQty, long timestamp) {
+        w.beginObject()
+                .name(SEQ).value(seq)
+                .name(TRADE_ID).value(tradeId)
+                .name(PRICE).decimal(price, Price.DECIMALS)
+                .name(FILLED_QTY).value(filledQty)
+                .name(TIMESTAMP).value(timestamp)
+                .endObject();
+    }
+
+    //----------------------------------------------------------------------
+    // Responses
+    //----------------------------------------------------------------------
+
+    /** {"tradeId":..,"state":..} plus "reason" when given. */
+    public static void writeOrderAck(JsonWriter w, String tradeId, String state, String reason) {
+        w.beginObject()
+                .name(TRADE_ID).value(tradeId)
+                .name(STATE).value(state);
+        if (reason != null) w.name(REASON).value(reason);
+        w.endObject();
+    }
+
+    public static void writeCancelAck(JsonWriter w, boolean cancelled) {
+        w.beginObject().name(CANCELLED).value(cancelled).endObject();
+    }
+
+    public static void writeBulkCancelAck(JsonWriter w, int cancelled) {
+        w.beginObject().name(CANCELLED).value(cancelled).endObject();
+    }
+
+    public static void writeAverage(JsonWriter w, String isin, long average) {
+        w.beginObject()
+                .name(ISIN).value(isin)
+                .name(AVERAGE).decimal(average, Price.DECIMALS)
+                .endObject();
+    }
+
+    public static void writeExposure(JsonWriter w, String trader, long current, long limit, boolean allowed) {
+        w.beginObject()
+                .name(TRADER).value(trader)
+                .name(CURRENT_EXPOSURE).decimal(current, Price.DECIMALS)
+                .name(LIMIT).decimal(limit, Price.DECIMALS)
+                .name(ALLOWED).value(allowed)
+                .endObject();
+    }
+
+    public static void writeAnalytics(JsonWriter w, AnalyticsReport r) {
+        long trades = r.getTrades();
+        w.beginObject()
+                .name(MODE).value(r.getMode())
+                .name(TRADES).value(trades)
+                .name(ISINS).beginArray();
+        for (AnalyticsReport.IsinStats s : r.getIsins()) {
+            w.beginObject()
+                    .name(ISIN).value(s.getIsin())
+                    .name(ORDERS).value(s.getOrders())
+                    .name(ORDERED_QTY).value(s.getOrderedQty())
+                    .name(FILLED_QTY).value(s.getFilledQty())
+                    .name(FILL_RATIO).value(s.getFillRatio())
+                    .name(VWAP).decimal(s.getVwap(), Price.DECIMALS)
+                    .name(NOTIONAL).decimal(s.getNotional(), Price.DECIMALS)
+                    .name(REJECTED).value(s.getRejected())
+                    .name(CANCELLED).value(s.getCancelled())
+                    .endObject();
+        }
+        w.endArray().name(REJECT_REASONS).beginArray();
+        for (Map.Entry<String, Long> e : r.getRejectReasons().entrySet()) {
+            w.beginObject()
+                    .name(REASON).value(e.getKey())
+                    .name(COUNT).value(e.getValue())
+                    .name(RATE).value(trades == 0 ? 0 : (double) e.getValue() / trades)
+                    .endObject();
+        }
+        w.endArray().name(TRADER_NOTIONAL).beginArray();
+        for (Map.Entry<String, Long> e : r.getTraderNotional().entrySet()) {
+            w.beginObject()
+                    .name(TRADER).value(e.getKey())
+                    .name(NOTIONAL).decimal(e.getValue(), Price.DECIMALS)
+                    .endObject();
+        }
+        w.endArray().name(RETRY_DISTRIBUTION).beginArray();
+        for (long n : r.getRetryDistribution()) {
+            w.value(n);
+        }
+        w.endArray().endObject();
+    }
+}
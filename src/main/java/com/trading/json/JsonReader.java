@@ -0,0 +1,360 @@
+package com.trading.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Minimal pull parser over a UTF-8 byte buffer, used by the hand-written codecs in
+ * {@link JsonCodecs}. Field names are matched against pre-encoded byte arrays, so reading
+ * a request allocates only the String values it actually keeps.
+ */
+public final class JsonReader {
+
+    private static final ThreadLocal<JsonReader> LOCAL = ThreadLocal.withInitial(JsonReader::new);
+    private static final int MAX_RETAINED = 1 << 20;
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private byte[] buf = new byte[1024];
+    private int pos;
+    private int end;
+    // a ',' is required before the next element of the current object/array
+    private boolean expectComma;
+
+    /**
+     * Reads the whole stream into this thread's reusable buffer. The returned reader is the
+     * same instance on every call from a thread, so finish with one before reading another.
+     */
+    public static JsonReader local(InputStream in) throws IOException {
+        JsonReader r = LOCAL.get();
+        if (r.buf.length > MAX_RETAINED) r.buf = new byte[1024];
+        int n = 0;
+        int read;
+        while ((read = in.read(r.buf, n, r.buf.length - n)) != -1) {
+            n += read;
+            if (n == r.buf.length) r.buf = Arrays.copyOf(r.buf, r.buf.length * 2);
+        }
+        r.pos = 0;
+        r.end = n;
+        r.expectComma = false;
+        return r;
+    }
+
+    /** Pre-encodes field names for {@link #nextName(byte[][])}. */
+    public static byte[][] names(String... names) {
+        byte[][] out = new byte[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            out[i] = names[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return out;
+    }
+
+    public void beginObject() {
+        expect('{');
+        expectComma = false;
+    }
+
+    public void endObject() {
+        expect('}');
+        expectComma = true;
+    }
+
+    /** True while the current object has more members. */
+    public boolean hasNext() {
+        skipWhitespace();
+        if (pos >= end) throw error("unexpected end of input");
+        byte c = buf[pos];
+        if (c == '}' || c == ']') return false;
+        if (expectComma) {
+            if (c != ',') throw error("expected ','");
+            pos++;
+        }
+        return true;
+    }
+
+    /** Reads a member name and returns its index in {@code names}, or -1 if it is not one of them. */
+    public int nextName(byte[][] names) {
+        expect('"');
+        int start = pos;
+        while (pos < end && buf[pos] != '"') {
+            // escaped names never match our plain ASCII field names; just skip over them
+            if (buf[pos] == '\\') pos++;
+            pos++;
+        }
+        if (pos >= end) throw error("unterminated name");
+        int len = pos - start;
+        pos++;
+        expect(':');
+        expectComma = false;
+
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].length == len
+                    && Arrays.equals(names[i], 0, len, buf, start, start + len)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public String nextString() {
+        skipWhitespace();
+        if (consumeLiteral("null")) {
+            expectComma = true;
+            return null;
+        }
+        expect('"');
+        int start = pos;
+        while (pos < end) {
+            byte c = buf[pos];
+            if (c == '"') {
+                String s = new String(buf, start, pos - start, StandardCharsets.UTF_8);
+                pos++;
+                expectComma = true;
+                return s;
+            }
+            if (c == '\\') return slowString(start);
+            pos++;
+        }
+        throw error("unterminated string");
+    }
+
+    /** Accepts both JSON numbers and numeric strings, e.g. {@code 101.5} or {@code "101.5"}. */
+    public double nextDouble() {
+        skipWhitespace();
+        boolean quoted = pos < end && buf[pos] == '"';
+        if (quoted) pos++;
+        double v = parseNumber();
+        if (quoted) expect('"');
+        expectComma = true;
+        return v;
+    }
+
+    /**
+     * Reads a number (or numeric string) straight into fixed-point with {@code decimals}
+     * implied decimals, without going through double. Extra digits round half-up.
+     */
+    public long nextDecimal(int decimals) {
+        skipWhitespace();
+        boolean quoted = pos < end && buf[pos] == '"';
+        if (quoted) pos++;
+        long v = parseDecimal(decimals);
+        if (quoted) expect('"');
+        expectComma = true;
+        return v;
+    }
+
+    /** Integral part of a number; values outside the int range are rejected, not clamped. */
+    public int nextInt() {
+        double v = nextDouble();
+        if (!(v > Integer.MIN_VALUE - 1.0 && v < Integer.MAX_VALUE + 1.0)) throw error("number out of range");
+        return (int) v;
+    }
+
+    public void skipValue() {
+        skipWhitespace();
+        if (pos >= end) throw error("unexpected end of input");
+        int depth = 0;
+        do {
+            byte c = buf[pos];
+            if (c == '"') {
+                pos++;
+                while (pos < end && buf[pos] != '"') {
+                    if (buf[pos] == '\\') pos++;
+                    pos++;
+                }
+                pos++;
+            } else {
+                if (c == '{' || c == '[') depth++;
+                else if (c == '}' || c == ']') depth--;
+                pos++;
+                if (depth == 0) {
+                    // scalars: consume the rest of the token
+                    while (pos < end && isScalarChar(buf[pos])) pos++;
+                }
+            }
+            if (depth > 0) skipWhitespace();
+        } while (depth > 0 && pos < end);
+        if (depth != 0 || pos > end) throw error("unterminated value");
+        expectComma = true;
+    }
+
+    //----------------------------------------------------------------------
+
+    private double parseNumber() {
+        int start = pos;
+        boolean negative = false;
+        if (pos < end && (buf[pos] == '-' || buf[pos] == '+')) {
+            negative = buf[pos] == '-';
+            pos++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fraction = 0;
+        boolean seenDot = false;
+        while (pos < end) {
+            byte c = buf[pos];
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (seenDot) fraction++;
+            } else if (c == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                break;
+            }
+            pos++;
+        }
+        if (digits == 0) throw error("expected number");
+
+        boolean exponent = pos < end && (buf[pos] == 'e' || buf[pos] == 'E');
+        if (exponent || digits > 15) {
+            // rare: let the JDK do the correctly rounded conversion
+            while (pos < end && isScalarChar(buf[pos])) pos++;
+            return Double.parseDouble(new String(buf, start, pos - start, StandardCharsets.US_ASCII));
+        }
+
+        // exact: mantissa < 2^53 and 10^fraction is exactly representable
+        double v = fraction == 0 ? mantissa : mantissa / POW10[fraction];
+        return negative ? -v : v;
+    }
+
+    private long parseDecimal(int decimals) {
+        int start = pos;
+        boolean negative = false;
+        if (pos < end && (buf[pos] == '-' || buf[pos] == '+')) {
+            negative = buf[pos] == '-';
+            pos++;
+        }
+
+        long v = 0;
+        int digits = 0;
+        int fraction = -1;      // digits seen after '.', -1 before it
+        boolean roundUp = false;
+        while (pos < end) {
+            byte c = buf[pos];
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (fraction < decimals) {
+                    v = v * 10 + (c - '0');
+                    if (fraction >= 0) fraction++;
+                } else if (fraction == decimals) {
+                    roundUp = c >= '5';
+                    fraction++;
+                }
+            } else if (c == '.' && fraction < 0) {
+                fraction = 0;
+            } else {
+                break;
+            }
+            pos++;
+        }
+        if (digits == 0) throw error("expected number");
+
+        if ((pos < end && (buf[pos] == 'e' || buf[pos] == 'E')) || digits > 18) {
+            // rare: exponent or more digits than fit in a long
+            while (pos < end && isScalarChar(buf[pos])) pos++;
+            BigDecimal exact;
+            try {
+                exact = new BigDecimal(new String(buf, start, pos - start, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                throw error("expected number");
+            }
+            if (exact.signum() == 0) return 0;
+            // bound the magnitude first: rescaling 1e999999999 would never finish
+            long magnitude = (long) exact.precision() - exact.scale();
+            if (magnitude > 19) throw error("number out of range");
+            if (magnitude < -decimals) return 0;
+            try {
+                return exact.setScale(decimals, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+            } catch (ArithmeticException e) {
+                throw error("number out of range");
+            }
+        }
+
+        // at most 18 digits so far, which always fit; scaling up to the implied decimals may not
+        try {
+            for (int i = Math.max(fraction, 0); i < decimals; i++) v = Math.multiplyExact(v, 10);
+            if (roundUp) v = Math.addExact(v, 1);
+        } catch (ArithmeticException e) {
+            throw error("number out of range");
+        }
+        return negative ? -v : v;
+    }
+
+    private String slowString(int start) {
+        StringBuilder sb = new StringBuilder(new String(buf, start, pos - start, StandardCharsets.UTF_8));
+        int runStart = pos;
+        while (pos < end) {
+            byte c = buf[pos];
+            if (c == '"') {
+                sb.append(new String(buf, runStart, pos - runStart, StandardCharsets.UTF_8));
+                pos++;
+                expectComma = true;
+                return sb.toString();
+            }
+            if (c != '\\') {
+                pos++;
+                continue;
+            }
+            sb.append(new String(buf, runStart, pos - runStart, StandardCharsets.UTF_8));
+            if (pos + 1 >= end) break;
+            byte e = buf[pos + 1];
+            pos += 2;
+            switch (e) {
+                case 'n': sb.append('\n'); break;
+                case 't': sb.append('\t'); break;
+                case 'r': sb.append('\r'); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'u':
+                    if (pos + 4 > end) throw error("bad unicode escape");
+                    sb.append((char) Integer.parseInt(new String(buf, pos, 4, StandardCharsets.US_ASCII), 16));
+                    pos += 4;
+                    break;
+                default: sb.append((char) e);
+            }
+            runStart = pos;
+        }
+        throw error("unterminated string");
+    }
+
+    private boolean consumeLiteral(String literal) {
+        int n = literal.length();
+        if (pos + n > end) return false;
+        for (int i = 0; i < n; i++) {
+            if (buf[pos + i] != literal.charAt(i)) return false;
+        }
+        pos += n;
+        return true;
+    }
+
+    private static boolean isScalarChar(byte c) {
+        return c != ',' && c != '}' && c != ']' && c != ' ' && c != '\n' && c != '\r' && c != '\t'
+                && c != ':' && c != '"';
+    }
+
+    private void expect(char c) {
+        skipWhitespace();
+        if (pos >= end || buf[pos] != c) throw error("expected '" + c + "'");
+        pos++;
+    }
+
+    private void skipWhitespace() {
+        while (pos < end) {
+            byte c = buf[pos];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') return;
+            pos++;
+        }
+    }
+
+    private IllegalArgumentException error(String msg) {
+        return new IllegalArgumentException("Malformed JSON at " + pos + ": " + msg);
+    }
+}
@@ -0,0 +1,298 @@
+package com.trading.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Minimal streaming JSON writer into a growable byte buffer.
+ * One instance per thread is reused (see {@link #local()}), so steady-state encoding
+ * does not allocate apart from the final copy handed to the caller. The thread-local
+ * instance is not re-entrant: finish one document before asking for another.
+ *
+ * Strings and doubles are written the way Gson's default configuration writes them
+ * (HTML-safe escapes, Double.toString for non-integral or large values), so switching a
+ * payload from Gson to a codec does not change its bytes.
+ */
+public final class JsonWriter {
+
+    private static final ThreadLocal<JsonWriter> LOCAL = ThreadLocal.withInitial(JsonWriter::new);
+    // a one-off huge blotter should not stay pinned to the thread
+    private static final int MAX_RETAINED = 1 << 20;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    // escape sequence for each ASCII char that needs one, as Gson's HTML-safe writer does
+    private static final byte[][] ESCAPES = new byte[128][];
+
+    static {
+        for (int c = 0; c < 0x20; c++) {
+            ESCAPES[c] = String.format("\\u%04x", c).getBytes(StandardCharsets.US_ASCII);
+        }
+        ESCAPES['"'] = new byte[]{'\\', '"'};
+        ESCAPES['\\'] = new byte[]{'\\', '\\'};
+        ESCAPES['\t'] = new byte[]{'\\', 't'};
+        ESCAPES['\b'] = new byte[]{'\\', 'b'};
+        ESCAPES['\n'] = new byte[]{'\\', 'n'};
+        ESCAPES['\r'] = new byte[]{'\\', 'r'};
+        ESCAPES['\f'] = new byte[]{'\\', 'f'};
+        for (char c : new char[]{'<', '>', '&', '=', '\''}) {
+            ESCAPES[c] = String.format("\\u%04x", (int) c).getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private byte[] buf = new byte[1024];
+    private int len;
+    // true right after '{', '[' or a name: the next token needs no comma
+    private boolean first = true;
+
+    /**
+     * Thread-local writer, already reset. Calling this again on the same thread returns the
+     * same instance and discards whatever it holds, so a document must be finished (copied
+     * out or written) before any code it calls encodes another one.
+     */
+    public static JsonWriter local() {
+        JsonWriter w = LOCAL.get();
+        if (w.buf.length > MAX_RETAINED) w.buf = new byte[1024];
+        w.reset();
+        return w;
+    }
+
+    /** Pre-encodes {@code "name":} for use with {@link #name(byte[])}. */
+    public static byte[] key(String name) {
+        return ("\"" + name + "\":").getBytes(StandardCharsets.UTF_8);
+    }
+
+    public JsonWriter reset() {
+        len = 0;
+        first = true;
+        return this;
+    }
+
+    public JsonWriter beginObject() {
+        separator();
+        put((byte) '{');
+        first = true;
+        return this;
+    }
+
+    public JsonWriter endObject() {
+        put((byte) '}');
+        first = false;
+        return this;
+    }
+
+    public JsonWriter beginArray() {
+        separator();
+        put((byte) '[');
+        first = true;
+        return this;
+    }
+
+    public JsonWriter endArray() {
+        put((byte) ']');
+        first = false;
+        return this;
+    }
+
+    public JsonWriter name(byte[] key) {
+        separator();
+        put(key, 0, key.length);
+        first = true;
+        return this;
+    }
+
+    public JsonWriter value(String s) {
+        separator();
+        if (s == null) {
+            put(NULL, 0, NULL.length);
+        } else {
+            writeString(s);
+        }
+        first = false;
+        return this;
+    }
+
+    public JsonWriter value(long v) {
+        separator();
+        writeLong(v);
+        first = false;
+        return this;
+    }
+
+    public JsonWriter value(double v) {
+        separator();
+        if (Double.isNaN(v) || Double.isInfinite(v)) {
+            throw new IllegalArgumentException("JSON forbids " + v);
+        }
+        // integral values are by far the most common; avoid Double.toString for them.
+        // From 1e7 up Double.toString switches to E-notation, so those take the slow path
+        if (v == (long) v && Math.abs(v) < 1e7 && !(v == 0 && 1 / v < 0)) {
+            writeLong((long) v);
+            put((byte) '.');
+            put((byte) '0');
+        } else {
+            writeAscii(Double.toString(v));
+        }
+        first = false;
+        return this;
+    }
+
+    /**
+     * Fixed-point number: {@code unscaled} with {@code decimals} implied decimals, written exactly
+     * with trailing zeros trimmed but at least one fractional digit (101250000, 6 -> 101.25).
+     */
+    public JsonWriter decimal(long unscaled, int decimals) {
+        separator();
+        if (unscaled < 0) {
+            put((byte) '-');
+            unscaled = -unscaled;
+        }
+        long pow = 1;
+        for (int i = 0; i < decimals; i++) pow *= 10;
+
+        writeLong(unscaled / pow);
+        put((byte) '.');
+        long frac = unscaled % pow;
+        if (frac == 0) {
+            put((byte) '0');
+        } else {
+            ensure(decimals);
+            for (int i = decimals - 1; i >= 0; i--) {
+                buf[len + i] = (byte) ('0' + (frac % 10));
+                frac /= 10;
+            }
+            len += decimals;
+            while (buf[len - 1] == '0') len--;
+        }
+        first = false;
+        return this;
+    }
+
+    public JsonWriter value(boolean v) {
+        separator();
+        byte[] b = v ? TRUE : FALSE;
+        put(b, 0, b.length);
+        first = false;
+        return this;
+    }
+
+    /** Copies an already encoded JSON value (e.g. a cached fragment) into the output. */
+    public JsonWriter raw(byte[] json, int off, int n) {
+        separator();
+        put(json, off, n);
+        first = false;
+        return this;
+    }
+
+    public int size() {
+        return len;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, len);
+    }
+
+    /** For APIs that only take text, e.g. WebSocket text frames. */
+    public String asString() {
+        return new String(buf, 0, len, StandardCharsets.UTF_8);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buf, 0, len);
+    }
+
+    //----------------------------------------------------------------------
+
+    private void separator() {
+        if (!first) put((byte) ',');
+        first = false;
+    }
+
+    private void writeString(String s) {
+        put((byte) '"');
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                byte[] esc = ESCAPES[c];
+                if (esc == null) {
+                    put((byte) c);
+                } else {
+                    put(esc, 0, esc.length);
+                }
+            } else if (c < 0x800) {
+                put((byte) (0xc0 | (c >> 6)));
+                put((byte) (0x80 | (c & 0x3f)));
+            } else if (c == '\u2028' || c == '\u2029') {
+                // valid JSON but line terminators in JavaScript source; Gson escapes them too
+                ensure(6);
+                buf[len++] = '\\';
+                buf[len++] = 'u';
+                buf[len++] = '2';
+                buf[len++] = '0';
+                buf[len++] = '2';
+                buf[len++] = HEX[c & 0xf];
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                put((byte) (0xf0 | (cp >> 18)));
+                put((byte) (0x80 | ((cp >> 12) & 0x3f)));
+                put((byte) (0x80 | ((cp >> 6) & 0x3f)));
+                put((byte) (0x80 | (cp & 0x3f)));
+            } else {
+                put((byte) (0xe0 | (c >> 12)));
+                put((byte) (0x80 | ((c >> 6) & 0x3f)));
+                put((byte) (0x80 | (c & 0x3f)));
+            }
+        }
+        put((byte) '"');
+    }
+
+    private void writeLong(long v) {
+        if (v == Long.MIN_VALUE) {
+            writeAscii(Long.toString(v));
+            return;
+        }
+        ensure(20);
+        if (v < 0) {
+            buf[len++] = '-';
+            v = -v;
+        }
+        int start = len;
+        do {
+            buf[len++] = (byte) ('0' + (v % 10));
+            v /= 10;
+        } while (v != 0);
+        // digits were written least significant first
+        for (int i = start, j = len - 1; i < j; i++, j--) {
+            byte t = buf[i];
+            buf[i] = buf[j];
+            buf[j] = t;
+        }
+    }
+
+    private void writeAscii(String s) {
+        ensure(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            buf[len++] = (byte) s.charAt(i);
+        }
+    }
+
+    private void put(byte b) {
+        ensure(1);
+        buf[len++] = b;
+    }
+
+    private void put(byte[] b, int off, int n) {
+        ensure(n);
+        System.arraycopy(b, off, buf, len, n);
+        len += n;
+    }
+
+    private void ensure(int n) {
+        if (len + n > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + n));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.trading.model;
+
+import java.util.List;
+import java.util.Map;
+
+/** Aggregate trade statistics, as served by /api/analytics. Amounts are fixed-point, see Price. */
+public class AnalyticsReport {
+
+    public static class IsinStats {
+        private final String isin;
+        private final long orders;
+        private final long orderedQty;
+        private final long filledQty;
+        private final long notional;
+        private final long rejected;
+        private final long cancelled;
+
+        public IsinStats(String isin, long orders, long orderedQty, long filledQty,
+                         long notional, long rejected, long cancelled) {
+            this.isin = isin;
+            this.orders = orders;
+            this.orderedQty = orderedQty;
+            this.filledQty = filledQty;
+            this.notional = notional;
+            this.rejected = rejected;
+            this.cancelled = cancelled;
+        }
+
+        public String getIsin() { return isin; }
+        public long getOrders() { return orders; }
+        public long getOrderedQty() { return orderedQty; }
+        public long getFilledQty() { return filledQty; }
+        public long getNotional() { return notional; }
+        public long getRejected() { return rejected; }
+        public long getCancelled() { return cancelled; }
+
+        // volume weighted average fill price, 0 when nothing filled
+        public long getVwap() { return filledQty == 0 ? 0 : notional / filledQty; }
+
+        public double getFillRatio() { return orderedQty == 0 ? 0 : (double) filledQty / orderedQty; }
+    }
+
+    private final String mode;
+    private final long trades;
+    private final List<IsinStats> isins;
+    private final Map<String, Long> rejectReasons;
+    private final Map<String, Long> traderNotional;
+    // finished trades by retry count; the last bucket also holds everything above it
+    private final long[] retryDistribution;
+
+    public AnalyticsReport(String mode, long trades, List<IsinStats> isins,
+                           Map<String, Long> rejectReasons, Map<String, Long> traderNotional,
+                           long[] retryDistribution) {
+        this.mode = mode;
+        this.trades = trades;
+        this.isins = isins;
+        this.rejectReasons = rejectReasons;
+        this.traderNotional = traderNotional;
+        this.retryDistribution = retryDistribution;
+    }
+
+    public String getMode() { return mode; }
+    public long getTrades() { return trades; }
+    public List<IsinStats> getIsins() { return isins; }
+    public Map<String, Long> getRejectReasons() { return rejectReasons; }
+    public Map<String, Long> getTraderNotional() { return traderNotional; }
+    public long[] getRetryDistribution() { return retryDistribution; }
+}
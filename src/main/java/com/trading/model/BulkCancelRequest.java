@@ -0,0 +1,18 @@
+package com.trading.model;
+
+/** Body of POST /api/trades/cancel/bulk; null filters match everything. */
+public class BulkCancelRequest {
+    private final String trader;
+    private final String isin;
+    private final TradeState state;
+
+    public BulkCancelRequest(String trader, String isin, TradeState state) {
+        this.trader = trader;
+        this.isin = isin;
+        this.state = state;
+    }
+
+    public String getTrader() { return trader; }
+    public String getIsin() { return isin; }
+    public TradeState getState() { return state; }
+}
@@ -0,0 +1,12 @@
+package com.trading.model;
+
+/** Body of POST /api/trades/cancel. */
+public class CancelRequest {
+    private final String id;
+
+    public CancelRequest(String id) {
+        this.id = id;
+    }
+
+    public String getId() { return id; }
+}
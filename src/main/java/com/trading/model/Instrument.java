@@ -5,16 +5,19 @@ public class Instrument {
     private final String currency;
     private final double yield;
     private final String tenor;
+    private final long tickSize;    // fixed-point, see Price
 
-    public Instrument(String isin, String currency, double yield, String tenor) {
+    public Instrument(String isin, String currency, double yield, String tenor, long tickSize) {
         this.isin = isin;
         this.currency = currency;
         this.yield = yield;
         this.tenor = tenor;
+        this.tickSize = tickSize;
     }
 
     public String getIsin() { return isin; }
     public String getCurrency() { return currency; }
     public double getYield() { return yield; }
     public String getTenor() { return tenor; }
+    public long getTickSize() { return tickSize; }
 }
@@ -2,16 +2,16 @@ package com.trading.model;
 
 public class MarketTick {
     private final String isin;
-    private final double price;
+    private final long price;   // fixed-point, see Price
     private final long timestamp;
 
-    public MarketTick(String isin, double price, long timestamp) {
+    public MarketTick(String isin, long price, long timestamp) {
         this.isin = isin;
         this.price = price;
         this.timestamp = timestamp;
     }
 
     public String getIsin() { return isin; }
-    public double getPrice() { return price; }
+    public long getPrice() { return price; }
     public long getTimestamp() { return timestamp; }
 }
@@ -0,0 +1,21 @@
+package com.trading.model;
+
+/** Body of POST /api/trades/create. */
+public class OrderRequest {
+    private final String isin;
+    private final String trader;
+    private final int quantity;
+    private final long limitPrice;
+
+    public OrderRequest(String isin, String trader, int quantity, long limitPrice) {
+        this.isin = isin;
+        this.trader = trader;
+        this.quantity = quantity;
+        this.limitPrice = limitPrice;
+    }
+
+    public String getIsin() { return isin; }
+    public String getTrader() { return trader; }
+    public int getQuantity() { return quantity; }
+    public long getLimitPrice() { return limitPrice; }
+}
@@ -0,0 +1,74 @@
+package com.trading.model;
+
+import java.math.BigInteger;
+
+/**
+ * Fixed-point prices and notionals: a {@code long} holding micro-units (6 implied decimals).
+ * One scale is shared by every instrument so notionals across ISINs add up exactly;
+ * each instrument's tick size (see InstrumentService) is a whole number of micro-units.
+ * Static helpers only, so prices stay primitive and never get boxed.
+ */
+public final class Price {
+
+    public static final int DECIMALS = 6;
+    public static final long SCALE = 1_000_000L;
+
+    private Price() {}
+
+    /** Nearest fixed-point value; only for converting generated/legacy doubles. */
+    public static long of(double px) {
+        return Math.round(px * SCALE);
+    }
+
+    public static double toDouble(long px) {
+        return (double) px / SCALE;
+    }
+
+    /** qty * price in the same scale; throws ArithmeticException on overflow. */
+    public static long notional(int qty, long px) {
+        return Math.multiplyExact((long) qty, px);
+    }
+
+    /** Rounds half-up to the nearest multiple of {@code tick}. */
+    public static long roundToTick(long px, long tick) {
+        return Math.floorDiv(px + tick / 2, tick) * tick;
+    }
+
+    /** px * bps / 10_000, truncated toward zero; split so px * bps cannot overflow. */
+    public static long scaleBps(long px, long bps) {
+        return px / 10_000 * bps + px % 10_000 * bps / 10_000;
+    }
+
+    /**
+     * True when {@code px} is more than {@code bps} basis points away from {@code ref}, i.e.
+     * |px - ref| * 10_000 > |ref| * bps, compared exactly whatever the magnitudes.
+     */
+    public static boolean deviatesBeyond(long px, long ref, long bps) {
+        try {
+            long diff = Math.abs(Math.subtractExact(px, ref));
+            if (diff >= 0) {
+                return Math.multiplyExact(diff, 10_000L) > Math.multiplyExact(Math.abs(ref), bps);
+            }
+        } catch (ArithmeticException overflow) {
+            // fall through to the exact comparison
+        }
+        BigInteger diff = BigInteger.valueOf(px).subtract(BigInteger.valueOf(ref)).abs();
+        return diff.multiply(BigInteger.valueOf(10_000))
+                .compareTo(BigInteger.valueOf(ref).abs().multiply(BigInteger.valueOf(bps))) > 0;
+    }
+
+    /** Plain decimal text, e.g. 101.25 or 100.0. */
+    public static String toString(long px) {
+        StringBuilder sb = new StringBuilder(24);
+        if (px < 0) sb.append('-');
+        long abs = Math.abs(px);
+        sb.append(abs / SCALE).append('.');
+        long frac = abs % SCALE;
+        if (frac == 0) return sb.append('0').toString();
+
+        String digits = Long.toString(frac + SCALE).substring(1);
+        int end = digits.length();
+        while (digits.charAt(end - 1) == '0') end--;
+        return sb.append(digits, 0, end).toString();
+    }
+}
@@ -10,8 +10,9 @@ public class Trade {
     private final String trader;
     private final int quantity;
 
-    private double limitPrice;
-    private double executionPrice;
+    // fixed-point, see Price
+    private long limitPrice;
+    private long executionPrice;
 
     private int filled = 0;
     private int retryCount = 0;
@@ -22,7 +23,7 @@ public class Trade {
     private TradeState state = TradeState.CREATED;
     private final List<String> history = new ArrayList<>();
 
-    public Trade(String id, String isin, String trader, int quantity, double limitPrice) {
+    public Trade(String id, String isin, String trader, int quantity, long limitPrice) {
         this.id = id;
         this.isin = isin;
         this.trader = trader;
@@ -31,13 +32,30 @@ public class Trade {
         addHistory("CREATED");
     }
 
+    /** Rebuilds a trade exactly as captured in a snapshot, without adding history. */
+    public static Trade restore(String id, String isin, String trader, int quantity,
+                                long limitPrice, long executionPrice, int filled, int retryCount,
+                                long executionStartTime, long executionEndTime,
+                                TradeState state, List<String> history) {
+        Trade t = new Trade(id, isin, trader, quantity, limitPrice);
+        t.history.clear();
+        t.history.addAll(history);
+        t.executionPrice = executionPrice;
+        t.filled = filled;
+        t.retryCount = retryCount;
+        t.executionStartTime = executionStartTime;
+        t.executionEndTime = executionEndTime;
+        t.state = state;
+        return t;
+    }
+
     // getters
     public String getId() { return id; }
     public String getIsin() { return isin; }
     public String getTrader() { return trader; }
     public int getQuantity() { return quantity; }
-    public double getLimitPrice() { return limitPrice; }
-    public double getExecutionPrice() { return executionPrice; }
+    public long getLimitPrice() { return limitPrice; }
+    public long getExecutionPrice() { return executionPrice; }
     public int getFilled() { return filled; }
     public int getRetryCount() { return retryCount; }
 
@@ -47,21 +65,22 @@ public class Trade {
     public TradeState getState() { return state; }
     public List<String> getHistory() { return history; }
 
-    // setters
-    public void setState(TradeState state) {
+    // setters; they lock the trade itself, the same monitor TradeService holds across
+    // multi-field updates and SnapshotService holds while copying, so no record is torn
+    public synchronized void setState(TradeState state) {
         this.state = state;
         addHistory(state.name());
     }
 
-    public void setExecutionPrice(double px) { this.executionPrice = px; }
-    public void setExecutionStartTime(long t) { this.executionStartTime = t; }
-    public void setExecutionEndTime(long t) { this.executionEndTime = t; }
+    public synchronized void setExecutionPrice(long px) { this.executionPrice = px; }
+    public synchronized void setExecutionStartTime(long t) { this.executionStartTime = t; }
+    public synchronized void setExecutionEndTime(long t) { this.executionEndTime = t; }
 
-    public void incrementRetry() { retryCount++; }
+    public synchronized void incrementRetry() { retryCount++; }
 
-    public void addFilled(int qty) { this.filled += qty; }
+    public synchronized void addFilled(int qty) { this.filled += qty; }
 
-    public void addHistory(String h) {
+    public synchronized void addHistory(String h) {
         history.add(h);
     }
 }
@@ -0,0 +1,42 @@
+package com.trading.model;
+
+/**
+ * Lifecycle transition of a single trade, captured by TradeService under the trade's lock and
+ * handed to its state listeners (and pushed to WebSocket subscribers).
+ * Sequence numbers are global and increasing; later events for the same trade supersede earlier ones.
+ */
+public class TradeEvent {
+    private final long seq;
+    private final String tradeId;
+    private final TradeState state;
+    private final int filled;
+    private final long price;
+    private final int retryCount;
+    // history entry recorded with the transition (e.g. the reject reason), or null
+    private final String reason;
+
+    public TradeEvent(long seq, String tradeId, TradeState state, int filled, long price,
+                      int retryCount, String reason) {
+        this.seq = seq;
+        this.tradeId = tradeId;
+        this.state = state;
+        this.filled = filled;
+        this.price = price;
+        this.retryCount = retryCount;
+        this.reason = reason;
+    }
+
+    /** Current state of {@code t}; the caller holds the trade's lock. */
+    public static TradeEvent of(long seq, Trade t, String reason) {
+        return new TradeEvent(seq, t.getId(), t.getState(), t.getFilled(), t.getExecutionPrice(),
+                t.getRetryCount(), reason);
+    }
+
+    public long getSeq() { return seq; }
+    public String getTradeId() { return tradeId; }
+    public TradeState getState() { return state; }
+    public int getFilled() { return filled; }
+    public long getPrice() { return price; }
+    public int getRetryCount() { return retryCount; }
+    public String getReason() { return reason; }
+}
@@ -0,0 +1,123 @@
+package com.trading;
+
+import com.trading.model.MarketTick;
+import com.trading.model.Price;
+import com.trading.model.Trade;
+import com.trading.model.TradeState;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class SnapshotServiceTest {
+
+    /** One node's worth of services, as MainServer wires them (no feed, no execution). */
+    private static class Node {
+        final MarketDataService market = new MarketDataService();
+        final CreditExposureService exposure = new CreditExposureService();
+        final TradeService trades;
+        final TradeApi api;
+        final SnapshotService snapshots;
+
+        Node(Path dir) throws IOException {
+            FixMockService fix = new FixMockService(new ExecutionJournal(dir.resolve("journal")));
+            InstrumentService instruments = new InstrumentService();
+            trades = new TradeService(market, instruments, exposure, fix);
+            api = new TradeApi(instruments, exposure, trades, fix, "");
+            snapshots = new SnapshotService(dir.resolve("snapshot.bin"), trades, exposure, api, market);
+        }
+    }
+
+    @Test
+    public void snapshotRestoresEveryField() throws IOException {
+        Path dir = Files.createTempDirectory("snapshot-test");
+        try {
+            Node before = new Node(dir);
+            Trade open = before.trades.createTrade("t-open", "US0001", "TRADER1", 100, Price.of(101.25));
+            open.incrementRetry();
+            open.setExecutionStartTime(1_700_000_000_000L);
+            open.setExecutionPrice(Price.of(101.2));
+            open.addFilled(50);
+            open.setState(TradeState.PARTIAL);
+            open.addHistory("PARTIAL_FILL:50");
+
+            Trade done = before.trades.createTrade("t-done", "GB0001", "TRADER2", 7, -Price.SCALE);
+            done.setState(TradeState.REJECTED);
+            done.addHistory("REJECTED_PRICE_DEVIATION");
+            done.addHistory("é ünïcode ✓");
+            done.setExecutionEndTime(1_700_000_000_123L);
+
+            before.market.restoreTick(new MarketTick("US0001", Price.of(99.5), 42L));
+            before.exposure.restoreExposure("TRADER1", Price.notional(100, Price.of(101.25)));
+            before.api.getDedupMap().put("hash-1", "t-open");
+            before.snapshots.snapshot();
+
+            Node after = new Node(dir);
+            after.snapshots.restore();
+
+            assertEquals(2, after.trades.getAllTrades().size());
+            assertSameTrade(open, after.trades.find("t-open").orElse(null));
+            assertSameTrade(done, after.trades.find("t-done").orElse(null));
+            assertEquals(Map.of("hash-1", "t-open"), new HashMap<>(after.api.getDedupMap()));
+            assertEquals(before.exposure.getExposures(), after.exposure.getExposures());
+            MarketTick tick = after.market.getLatest("US0001");
+            assertEquals(Price.of(99.5), tick.getPrice());
+            assertEquals(42L, tick.getTimestamp());
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void tradesSpanningSeveralSectionsAreAllRestored() throws IOException {
+        Path dir = Files.createTempDirectory("snapshot-test");
+        try {
+            Node before = new Node(dir);
+            int n = 65_536 * 2 + 17;    // three trade sections
+            for (int i = 0; i < n; i++) {
+                before.trades.createTrade("t" + i, i % 2 == 0 ? "US0001" : "JP0001", "T" + (i % 13), i + 1, i);
+            }
+            before.snapshots.snapshot();
+
+            Node after = new Node(dir);
+            after.snapshots.restore();
+
+            assertEquals(n, after.trades.getAllTrades().size());
+            for (int i = 0; i < n; i += 9_973) {
+                assertSameTrade(before.trades.find("t" + i).orElse(null), after.trades.find("t" + i).orElse(null));
+            }
+        } finally {
+            delete(dir);
+        }
+    }
+
+    private static void assertSameTrade(Trade expected, Trade actual) {
+        assertNotNull(actual);
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getIsin(), actual.getIsin());
+        assertEquals(expected.getTrader(), actual.getTrader());
+        assertEquals(expected.getQuantity(), actual.getQuantity());
+        assertEquals(expected.getLimitPrice(), actual.getLimitPrice());
+        assertEquals(expected.getExecutionPrice(), actual.getExecutionPrice());
+        assertEquals(expected.getFilled(), actual.getFilled());
+        assertEquals(expected.getRetryCount(), actual.getRetryCount());
+        assertEquals(expected.getExecutionStartTime(), actual.getExecutionStartTime());
+        assertEquals(expected.getExecutionEndTime(), actual.getExecutionEndTime());
+        assertEquals(expected.getState(), actual.getState());
+        assertEquals(expected.getHistory(), actual.getHistory());
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
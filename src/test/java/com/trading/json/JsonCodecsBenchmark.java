@@ -0,0 +1,70 @@
+package com.trading.json;
+
+import com.google.gson.Gson;
+import com.trading.model.OrderRequest;
+import com.trading.model.Price;
+import com.trading.model.Trade;
+import com.trading.model.TradeState;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Order round trip (parse a create request, encode the resulting trade) through the codecs
+ * versus the Gson path they replaced: body to String, fromJson into a Map, toJson of the
+ * trade, back to bytes. Not part of the test run; start it by hand with the test classpath:
+ *
+ *   java -cp target/classes:target/test-classes:gson.jar com.trading.json.JsonCodecsBenchmark
+ */
+public class JsonCodecsBenchmark {
+
+    private static final byte[] ORDER = ("{\"isin\":\"US0001\",\"trader\":\"alice\","
+            + "\"quantity\":250,\"limitPrice\":101.25}").getBytes(StandardCharsets.UTF_8);
+    private static final int ROUNDS = 5;
+    private static final int OPS = 500_000;
+
+    private static final Gson GSON = new Gson();
+    private static long sink;
+
+    public static void main(String[] args) throws IOException {
+        Trade trade = new Trade("n1-6f1c1e0a-5d38-4a7e-9c55-1d2b0f3e4a77", "US0001", "alice", 250, Price.of(101.25));
+        trade.setState(TradeState.EXECUTED);
+        trade.setExecutionPrice(Price.of(101.2));
+        trade.addFilled(250);
+        trade.setState(TradeState.PENDING_CONFIRMATION);
+        trade.setState(TradeState.CONFIRMED);
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            long codec = time(() -> codec(trade));
+            long gson = time(() -> gson(trade));
+            System.out.printf("round %d: codecs %4d ns/op, gson %5d ns/op, %.1fx%n",
+                    round, codec / OPS, gson / OPS, (double) gson / codec);
+        }
+        System.out.println(sink);
+    }
+
+    private interface Op {
+        void run() throws IOException;
+    }
+
+    private static long time(Op op) throws IOException {
+        long start = System.nanoTime();
+        for (int i = 0; i < OPS; i++) op.run();
+        return System.nanoTime() - start;
+    }
+
+    private static void codec(Trade trade) throws IOException {
+        OrderRequest req = JsonCodecs.readOrder(JsonReader.local(new ByteArrayInputStream(ORDER)));
+        JsonWriter w = JsonWriter.local();
+        JsonCodecs.writeTrade(w, trade);
+        sink += req.getQuantity() + w.toByteArray().length;
+    }
+
+    private static void gson(Trade trade) {
+        Map<?, ?> req = GSON.fromJson(new String(ORDER, StandardCharsets.UTF_8), Map.class);
+        byte[] out = GSON.toJson(trade).getBytes(StandardCharsets.UTF_8);
+        sink += ((Number) req.get("quantity")).intValue() + out.length;
+    }
+}
@@ -0,0 +1,113 @@
+package com.trading.json;
+
+import com.trading.model.OrderRequest;
+import com.trading.model.Price;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class JsonReaderTest {
+
+    private static JsonReader reader(String json) throws IOException {
+        return JsonReader.local(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static long decimal(String number) throws IOException {
+        return reader(number).nextDecimal(Price.DECIMALS);
+    }
+
+    private static void assertOutOfRange(String number) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> decimal(number));
+        assertEquals(number, true, e.getMessage().contains("out of range"));
+    }
+
+    @Test
+    public void decimalsAreExact() throws IOException {
+        assertEquals(101_250_000L, decimal("101.25"));
+        assertEquals(100_000_000L, decimal("100"));
+        assertEquals(-1L, decimal("-0.000001"));
+        assertEquals(0L, decimal("0"));
+        assertEquals(101_250_000L, decimal("\"101.25\""));
+    }
+
+    @Test
+    public void extraDigitsRoundHalfUp() throws IOException {
+        assertEquals(1L, decimal("0.0000005"));
+        assertEquals(0L, decimal("0.0000004999"));
+        assertEquals(-1L, decimal("-0.0000005"));
+        assertEquals(1_000_000L, decimal("0.9999995"));
+    }
+
+    @Test
+    public void exponentsAndLongMantissasTakeTheExactPath() throws IOException {
+        assertEquals(101_250_000L, decimal("1.0125e2"));
+        assertEquals(101_250_000L, decimal("1.0125E+2"));
+        assertEquals(1L, decimal("1e-6"));
+        assertEquals(0L, decimal("1e-999999999"));
+        assertEquals(0L, decimal("0e999999999"));
+        assertEquals(123_456_789_012_345_679L, decimal("123456789012.3456789"));
+    }
+
+    @Test
+    public void largestRepresentablePriceIsAccepted() throws IOException {
+        assertEquals(Long.MAX_VALUE, decimal("9223372036854.775807"));
+        assertEquals(-Long.MAX_VALUE, decimal("-9223372036854.775807"));
+        assertEquals(9_223_372_036_854_000_000L, decimal("9223372036854"));
+    }
+
+    @Test
+    public void pricesThatDoNotFitAreRejected() {
+        // would have wrapped to a negative price on the fast path
+        assertOutOfRange("10000000000000");
+        assertOutOfRange("9223372036855");
+        assertOutOfRange("9223372036854.77581");
+        assertOutOfRange("9223372036854.775808");
+        assertOutOfRange("9223372036854.7758075");
+        assertOutOfRange("-10000000000000");
+        assertOutOfRange("1e13");
+        assertOutOfRange("1e999999999");
+    }
+
+    @Test
+    public void quantityOutsideIntRangeIsRejected() throws IOException {
+        assertEquals(Integer.MAX_VALUE, reader("2147483647").nextInt());
+        assertEquals(Integer.MIN_VALUE, reader("-2147483648").nextInt());
+        assertEquals(250, reader("250.9").nextInt());
+        assertThrows(IllegalArgumentException.class, () -> reader("2147483648").nextInt());
+        assertThrows(IllegalArgumentException.class, () -> reader("1e10").nextInt());
+    }
+
+    @Test
+    public void orderWithOversizedLimitIsMalformed() {
+        String body = "{\"isin\":\"US0001\",\"trader\":\"T\",\"quantity\":1,\"limitPrice\":10000000000000}";
+        assertThrows(IllegalArgumentException.class, () -> JsonCodecs.readOrder(reader(body)));
+    }
+
+    @Test
+    public void orderWithoutQuantityOrLimitIsRejected() {
+        String noLimit = "{\"isin\":\"US0001\",\"trader\":\"T\",\"quantity\":1}";
+        String noQuantity = "{\"isin\":\"US0001\",\"trader\":\"T\",\"limitPrice\":99.5}";
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> JsonCodecs.readOrder(reader(noLimit)));
+        assertEquals("limitPrice required", e.getMessage());
+        e = assertThrows(IllegalArgumentException.class, () -> JsonCodecs.readOrder(reader(noQuantity)));
+        assertEquals("quantity required", e.getMessage());
+        assertThrows(IllegalArgumentException.class,
+                () -> JsonCodecs.readOrder(reader("{\"quantity\":1,\"limitPrice\":null}")));
+    }
+
+    @Test
+    public void orderFieldsAreRead() throws IOException {
+        String body = "{\"limitPrice\":\"99.5\",\"extra\":[1,{\"a\":null}],\"quantity\":10,"
+                + "\"trader\":\"T\",\"isin\":\"US0001\"}";
+        OrderRequest req = JsonCodecs.readOrder(reader(body));
+        assertEquals("US0001", req.getIsin());
+        assertEquals("T", req.getTrader());
+        assertEquals(10, req.getQuantity());
+        assertEquals(99_500_000L, req.getLimitPrice());
+    }
+}
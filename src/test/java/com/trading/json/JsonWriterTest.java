@@ -0,0 +1,64 @@
+package com.trading.json;
+
+import com.google.gson.Gson;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class JsonWriterTest {
+
+    private final Gson gson = new Gson();
+
+    @Test
+    public void stringsAreEscapedLikeGson() {
+        String[] samples = {
+                "", "plain", "quote\" backslash\\ slash/",
+                "<script>alert('x')</script>", "a=b&c=d",
+                "tab\t nl\n cr\r bs\b ff\f nul\u0000 us\u001f del\u007f",
+                "café € 中", "📈 up", "ls \u2028 ps \u2029"
+        };
+        for (String s : samples) {
+            assertEquals(s, gson.toJson(s), JsonWriter.local().value(s).asString());
+        }
+    }
+
+    @Test
+    public void doublesAreFormattedLikeGson() {
+        double[] samples = {
+                0.0, -0.0, 1.0, -1.0, 0.5, 0.25, 1.0 / 3, 0.001, 0.0001, 1e-7,
+                123456.0, 9999999.0, 1e7, -1e7, 12345678.0, 1e15, 1e21, Double.MAX_VALUE,
+                Double.MIN_VALUE, 4.35
+        };
+        for (double d : samples) {
+            assertEquals(Double.toString(d), gson.toJson(d), JsonWriter.local().value(d).asString());
+        }
+    }
+
+    @Test
+    public void nonFiniteDoublesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> JsonWriter.local().value(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> JsonWriter.local().value(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    public void decimalTrimsTrailingZeros() {
+        assertEquals("101.25", JsonWriter.local().decimal(101_250_000, 6).asString());
+        assertEquals("100.0", JsonWriter.local().decimal(100_000_000, 6).asString());
+        assertEquals("-0.000001", JsonWriter.local().decimal(-1, 6).asString());
+        assertEquals("0.0", JsonWriter.local().decimal(0, 6).asString());
+    }
+
+    @Test
+    public void separatorsAreInsertedBetweenMembers() {
+        byte[] a = JsonWriter.key("a");
+        byte[] b = JsonWriter.key("b");
+        String json = JsonWriter.local()
+                .beginObject()
+                .name(a).beginArray().value(1).value("x").beginObject().endObject().endArray()
+                .name(b).value(true)
+                .endObject()
+                .asString();
+        assertEquals("{\"a\":[1,\"x\",{}],\"b\":true}", json);
+    }
+}
@@ -0,0 +1,65 @@
+package com.trading.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class PriceTest {
+
+    @Test
+    public void ofAndToStringRoundTrip() {
+        assertEquals(101_250_000L, Price.of(101.25));
+        assertEquals("101.25", Price.toString(101_250_000L));
+        assertEquals("100.0", Price.toString(100 * Price.SCALE));
+        assertEquals("-0.000001", Price.toString(-1));
+        assertEquals("9223372036854.775807", Price.toString(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void notionalFailsInsteadOfWrapping() {
+        assertEquals(25_312_500_000L, Price.notional(250, 101_250_000L));
+        assertThrows(ArithmeticException.class, () -> Price.notional(2, Long.MAX_VALUE / 2 + 1));
+        assertThrows(ArithmeticException.class, () -> Price.notional(Integer.MAX_VALUE, 10_000_000_000_000L));
+    }
+
+    @Test
+    public void roundToTickIsHalfUp() {
+        long tick = Price.SCALE / 64;   // 15625
+        assertEquals(100 * Price.SCALE, Price.roundToTick(100 * Price.SCALE + 7_812, tick));
+        assertEquals(100 * Price.SCALE + tick, Price.roundToTick(100 * Price.SCALE + 7_813, tick));
+    }
+
+    @Test
+    public void scaleBpsTruncatesTowardZero() {
+        assertEquals(98_000_000L, Price.scaleBps(100 * Price.SCALE, 9_800));
+        assertEquals(1L, Price.scaleBps(19_999, 1));
+        assertEquals(-1L, Price.scaleBps(-19_999, 1));
+        assertEquals(Long.MAX_VALUE / 10_000 * 10_000 + Long.MAX_VALUE % 10_000,
+                Price.scaleBps(Long.MAX_VALUE, 10_000));
+        // px * bps alone would overflow here
+        assertEquals(9_038_904_596_117_680_290L, Price.scaleBps(Long.MAX_VALUE, 9_800));
+    }
+
+    @Test
+    public void deviationIsComparedExactly() {
+        long avg = 100 * Price.SCALE;
+        assertFalse(Price.deviatesBeyond(110 * Price.SCALE, avg, 1_000));
+        assertTrue(Price.deviatesBeyond(110 * Price.SCALE + 1, avg, 1_000));
+        assertFalse(Price.deviatesBeyond(90 * Price.SCALE, avg, 1_000));
+        assertTrue(Price.deviatesBeyond(90 * Price.SCALE - 1, avg, 1_000));
+    }
+
+    @Test
+    public void deviationDoesNotOverflow() {
+        long avg = 100 * Price.SCALE;
+        // |px - avg| * 10_000 overflows a long; a wrapped product could pass the check
+        assertTrue(Price.deviatesBeyond(Long.MAX_VALUE, avg, 1_000));
+        assertTrue(Price.deviatesBeyond(Long.MIN_VALUE, avg, 1_000));
+        assertTrue(Price.deviatesBeyond(1_000_000_000_000_000L, avg, 1_000));
+        assertFalse(Price.deviatesBeyond(Long.MAX_VALUE, Long.MAX_VALUE - 1, 1));
+        assertFalse(Price.deviatesBeyond(Long.MAX_VALUE - 1, Long.MAX_VALUE, 1_000));
+    }
+}